@@ -0,0 +1,78 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.bench.id.IdentityRow;
+import jpabook.jpashop.bench.id.PooledLoRow;
+import jpabook.jpashop.bench.id.SequenceRow;
+import jpabook.jpashop.bench.id.TimeOrderedRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/*
+    식별자 생성 전략별 저장 처리량 (rows/s)
+    트랜잭션 하나에 ROWS 건을 persist 하고 커밋한다. (hibernate.jdbc.batch_size 배치 insert)
+    - sequence     : persist 마다 시퀀스 호출
+    - identity     : persist 마다 insert, 배치 불가
+    - pooledLo     : 시퀀스 한번에 50개 (Order, Member, Item ...)
+    - timeOrdered  : JVM 안에서 생성 (OrderItem)
+    엔티티는 bench.id 패키지의 벤치마크 전용 테이블이다. 호출당 SQL 수는 SqlCounters 로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdGeneratorBenchmark {
+    private static final int ROWS = 1000;
+
+    private EntityManager em;
+    private TransactionTemplate tx;
+
+    @Setup
+    public void setUp(OrderData data) {
+        em = data.getBean(EntityManager.class);
+        tx = new TransactionTemplate(data.getBean(PlatformTransactionManager.class));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void sequence(OrderData data, SqlCounters sql) {
+        persist(data, i -> new SequenceRow("row-" + i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identity(OrderData data, SqlCounters sql) {
+        persist(data, i -> new IdentityRow("row-" + i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooledLo(OrderData data, SqlCounters sql) {
+        persist(data, i -> new PooledLoRow("row-" + i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void timeOrdered(OrderData data, SqlCounters sql) {
+        persist(data, i -> new TimeOrderedRow("row-" + i));
+    }
+
+    private void persist(OrderData data, IntFunction<Object> row) {
+        data.call(() -> tx.execute(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(row.apply(i));
+            }
+            return null;
+        }));
+    }
+}
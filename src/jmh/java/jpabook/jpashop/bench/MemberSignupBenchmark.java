@@ -0,0 +1,94 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.service.MemberNameFilter;
+import jpabook.jpashop.domain.service.MemberNameIndex;
+import jpabook.jpashop.domain.service.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    회원 가입 처리량 (joins/s), 기존 회원 members 명 (기본 100만)
+    - newName      : 처음 보는 이름, 블룸 필터가 "없다" 고 하므로 중복 검사 쿼리 없이 insert 만 한다
+    - existingName : 이미 있는 이름, 블룸 필터를 지나 exists 쿼리 (uk_member_name 인덱스) 로 걸러진다
+    기존 회원은 JDBC 배치로 직접 넣고, 블룸 필터와 이름 인덱스를 다시 읽게 한다. (기동 시점 로딩과 같은 상태)
+    java -jar build/libs/jpashop-0.0.1-SNAPSHOT-jmh.jar MemberSignup -p members=1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberSignupBenchmark {
+    private static final long SEED_ID_FROM = 1_000_000_000_000L; // pooled_lo 시퀀스와 겹치지 않는 id
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param("1000000")
+    public int members;
+
+    private MemberService memberService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp(OrderData data) {
+        memberService = data.getBean(MemberService.class);
+        JdbcTemplate jdbcTemplate = data.getBean(JdbcTemplate.class);
+        for (int from = 0; from < members; from += BATCH_SIZE) {
+            int chunkFrom = from;
+            int size = Math.min(BATCH_SIZE, members - from);
+            jdbcTemplate.batchUpdate("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            int m = chunkFrom + i;
+                            ps.setLong(1, SEED_ID_FROM + m);
+                            ps.setString(2, existingName(m));
+                            ps.setString(3, "서울");
+                            ps.setString(4, "street " + m);
+                            ps.setString(5, "12345");
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    });
+        }
+        data.getBean(MemberNameFilter.class).load();
+        data.getBean(MemberNameIndex.class).load();
+    }
+
+    @Benchmark
+    public Long newName(OrderData data) {
+        Member member = new Member();
+        member.setName("signup " + sequence.incrementAndGet());
+        return data.call(() -> memberService.join(member));
+    }
+
+    @Benchmark
+    public Long existingName(OrderData data) {
+        Member member = new Member();
+        member.setName(existingName(ThreadLocalRandom.current().nextInt(members)));
+        try {
+            return data.call(() -> memberService.join(member));
+        } catch (IllegalStateException e) {
+            return null; // 중복 회원
+        }
+    }
+
+    private static String existingName(int m) {
+        return "existing member " + m;
+    }
+}
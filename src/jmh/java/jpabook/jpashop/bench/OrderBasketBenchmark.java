@@ -0,0 +1,79 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.domain.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+    상품 lines 개를 주문하는 시간
+    - basket : 장바구니 주문 한번 (OrderService.order(memberId, itemCounts)), 트랜잭션 하나, 주문 하나
+    - single : 상품마다 주문 한번씩 lines 번, 트랜잭션 lines 개, 주문 lines 개
+    호출당 SQL 수는 SqlCounters 보조 지표로 본다. OrderData 의 items 가 lines 이상이어야 한다. (기본 100)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderBasketBenchmark {
+    private static final int STOCK = 100_000_000;
+
+    @Param("50")
+    public int lines;
+
+    private OrderService orderService;
+    private JdbcTemplate jdbcTemplate;
+    private Long memberId;
+    private Map<Long, Integer> basket;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderService = data.getBean(OrderService.class);
+        jdbcTemplate = data.getBean(JdbcTemplate.class);
+        EntityManager em = data.getBean(EntityManager.class);
+        memberId = data.read(() -> em.createQuery("select m.id from Member m order by m.id", Long.class)
+                .setMaxResults(1)
+                .getSingleResult());
+        List<Long> itemIds = data.read(() -> em.createQuery("select i.id from Item i order by i.id", Long.class)
+                .setMaxResults(lines)
+                .getResultList());
+        if (itemIds.size() < lines) {
+            throw new IllegalStateException("상품이 " + lines + "개 이상 필요합니다. -p items=" + lines);
+        }
+        basket = new HashMap<>();
+        itemIds.forEach(itemId -> basket.put(itemId, 1));
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        jdbcTemplate.update("update item set stock_quantity = ?", STOCK);
+    }
+
+    @Benchmark
+    public Long basket(OrderData data, SqlCounters sql) {
+        return data.call(() -> orderService.order(memberId, basket));
+    }
+
+    @Benchmark
+    public Long single(OrderData data, SqlCounters sql) {
+        return data.call(() -> {
+            Long last = null;
+            for (Long itemId : basket.keySet()) {
+                last = orderService.order(memberId, itemId, 1);
+            }
+            return last;
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.service.MemberNameFilter;
+import jpabook.jpashop.domain.service.MemberNameIndex;
+import jpabook.jpashop.domain.service.OrderSummaryRebuilder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+    벤치마크용 데이터
+    메모리 H2 로 애플리케이션을 띄우고 주문 / 상품 / 주문상품 수를 @Param 으로 받아 채운다.
+    java -jar build/libs/jpashop-0.0.1-SNAPSHOT-jmh.jar OrderRead -p orders=10000 -p linesPerOrder=5 -prof gc
+    groupCommit 은 OrderPlacementBenchmark, inClausePadding 은 OrderInQueryBenchmark 에서만 의미가 있다.
+
+    open-in-view 가 꺼져 있으므로 조회는 read() 의 읽기 전용 트랜잭션 안에서 실행한다. (지연 로딩 포함)
+    read() 호출 수와 Hibernate Statistics 로 SqlCounters 가 호출 한번에 실행된 SQL 수를 보조 지표로 낸다.
+ */
+@State(Scope.Benchmark)
+public class OrderData {
+    private static final int ORDERS_PER_MEMBER = 10;
+    private static final int MEMBERS_PER_CHUNK = 100;
+
+    @Param("1000")
+    public int orders;
+    @Param("100")
+    public int items;
+    @Param("2")
+    public int linesPerOrder;
+    @Param("false")
+    public boolean groupCommit;
+    @Param("true")
+    public boolean inClausePadding;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private Statistics statistics;
+    private final AtomicLong operations = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "jpashop.order.group-commit.enabled=" + groupCommit,
+                        "spring.jpa.properties.hibernate.query.in_clause_parameter_padding=" + inClausePadding,
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.type=off",
+                        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn")
+                .run();
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        seed(new TransactionTemplate(transactionManager), context.getBean(EntityManager.class));
+        context.getBean(OrderSummaryRebuilder.class).rebuild(); // 직접 저장한 주문이라 요약을 따로 만든다
+        context.getBean(MemberNameFilter.class).load();         // 회원도 직접 저장했으므로 이름 필터 / 인덱스를 다시 읽는다
+        context.getBean(MemberNameIndex.class).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    // read() 호출 수
+    public long getOperations() {
+        return operations.get();
+    }
+
+    public <T> T read(Supplier<T> query) {
+        operations.incrementAndGet();
+        return readOnly.execute(status -> query.get());
+    }
+
+    // 쓰기 호출, 트랜잭션은 호출하는 서비스가 연다. (read() 처럼 읽기 전용 트랜잭션으로 감싸지 않는다) 호출 수만 센다
+    public <T> T call(Supplier<T> action) {
+        operations.incrementAndGet();
+        return action.get();
+    }
+
+    // 회원 한명당 주문 10건, 회원과 주문을 같은 트랜잭션에서 저장해서 회원을 다시 조회하지 않는다
+    private void seed(TransactionTemplate tx, EntityManager em) {
+        long[] itemIds = new long[items];
+        int[] prices = new int[items];
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < items; i++) {
+                Book book = new Book();
+                book.setName("bench book " + i);
+                book.setPrice(10000 + i * 10);
+                book.setStockQuantity(1_000_000);
+                em.persist(book);
+                itemIds[i] = book.getId();
+                prices[i] = book.getPrice();
+            }
+        });
+
+        Random random = new Random(42);
+        int members = (orders + ORDERS_PER_MEMBER - 1) / ORDERS_PER_MEMBER;
+        for (int from = 0; from < members; from += MEMBERS_PER_CHUNK) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(members, from + MEMBERS_PER_CHUNK);
+            tx.executeWithoutResult(status -> {
+                for (int m = chunkFrom; m < chunkTo; m++) {
+                    Member member = new Member();
+                    member.setName("bench member " + m);
+                    member.setAddress(new Address("서울", "street " + m, "12345"));
+                    em.persist(member);
+
+                    for (int k = 0; k < ORDERS_PER_MEMBER && m * ORDERS_PER_MEMBER + k < orders; k++) {
+                        Delivery delivery = new Delivery();
+                        delivery.setAddress(member.getAddress());
+
+                        OrderItem[] lines = new OrderItem[linesPerOrder];
+                        for (int l = 0; l < linesPerOrder; l++) {
+                            int item = random.nextInt(items);
+                            lines[l] = OrderItem.createReservedOrderItem(
+                                    em.getReference(Item.class, itemIds[item]), prices[item], 1 + random.nextInt(3));
+                        }
+                        em.persist(Order.createOrder(member, delivery, lines));
+                    }
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    V5 페이징 (findAllByDto_optimization(offset, limit)) 의 주문상품 IN 쿼리
+    호출마다 페이지 크기를 1 ~ maxOrders 에서 고르므로 IN 파라미터 개수가 매번 다르다.
+    -p inClausePadding=true,false 로 파라미터 수를 2의 거듭제곱으로 채울 때와 아닐 때를 비교한다.
+    처리량과 함께 SqlCounters 의 sqlStatementsPerOp (호출당 쿼리 수), queryPlanCacheHitRatio (쿼리 플랜 캐시 적중률) 를 본다.
+    java -jar build/libs/jpashop-0.0.1-SNAPSHOT-jmh.jar OrderInQuery -p orders=10000 -p inClausePadding=true,false
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderInQueryBenchmark {
+    @Param({"10", "100", "1000"})
+    public int maxOrders;
+
+    private OrderQueryRepository orderQueries;
+    private int orders;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderQueries = data.getBean(OrderQueryRepository.class);
+        orders = data.orders;
+    }
+
+    @Benchmark
+    public List<?> ordersV5_page(OrderData data, SqlCounters sql) {
+        int limit = 1 + random.nextInt(maxOrders);
+        int offset = random.nextInt(Math.max(1, orders - limit));
+        return data.<List<?>>read(() -> orderQueries.findAllByDto_optimization(offset, limit));
+    }
+}
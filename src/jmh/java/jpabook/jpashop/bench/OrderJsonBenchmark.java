@@ -0,0 +1,76 @@
+package jpabook.jpashop.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.query.OrderQueryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+    주문 목록 JSON 응답 비교, DTO 를 만들어 Jackson 으로 직렬화 (V5 / V6) vs JDBC row 를 JsonGenerator 에 바로 쓰기 (V5.2 / V6.2)
+    조회부터 JSON 바이트를 만들기까지 측정한다. 두 방식의 결과 바이트는 같다. (OrderJsonTest)
+    할당량은 gc 프로파일러의 gc.alloc.rate.norm (B/op) 으로 비교한다.
+    java -jar build/libs/jpashop-0.0.1-SNAPSHOT-jmh.jar OrderJson -p orders=10000 -p linesPerOrder=5 -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderJsonBenchmark {
+    private OrderQueryRepository orderQueries;
+    private OrderQueryService orderQueryService;
+    private ObjectMapper objectMapper;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20); // 버퍼는 재사용해서 양쪽 할당량에서 뺀다
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderQueries = data.getBean(OrderQueryRepository.class);
+        orderQueryService = data.getBean(OrderQueryService.class);
+        objectMapper = data.getBean(ObjectMapper.class);
+    }
+
+    @Benchmark
+    public int ordersV5_dto(OrderData data, SqlCounters sql) {
+        return data.<Integer>read(() -> write(() -> objectMapper.writeValue(out, orderQueries.findAllByDto_optimization())));
+    }
+
+    @Benchmark
+    public int ordersV5_direct(OrderData data, SqlCounters sql) {
+        return data.<Integer>read(() -> write(() -> orderQueryService.writeOrders(out)));
+    }
+
+    @Benchmark
+    public int ordersV6_dto(OrderData data, SqlCounters sql) {
+        return data.<Integer>read(() -> write(() -> objectMapper.writeValue(out, orderQueries.findAllByDto_flat())));
+    }
+
+    @Benchmark
+    public int ordersV6_direct(OrderData data, SqlCounters sql) {
+        return data.<Integer>read(() -> write(() -> orderQueryService.writeOrderFlats(out)));
+    }
+
+    // 쓴 바이트 수를 반환한다
+    private int write(JsonWriter writer) {
+        out.reset();
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size();
+    }
+
+    @FunctionalInterface
+    private interface JsonWriter {
+        void write() throws IOException;
+    }
+}
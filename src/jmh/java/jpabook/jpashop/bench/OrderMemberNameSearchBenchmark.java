@@ -0,0 +1,57 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.domain.service.OrderService;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    회원 이름으로 주문 검색 지연 시간, 회원 100만명 / 주문 1000만건 (회원당 주문 10건)
+    - nameIndex : MemberNameIndex 로 후보 회원 id 를 찾고 o.member.id in (...) 로 검색 (OrderService.findOrders)
+    - nameJoin  : 회원을 조인해서 m.name like 'prefix%' 로 검색 (인덱스를 거치지 않는 경로)
+    검색어는 "bench member <번호>" 접두어, 번호 자릿수가 적을수록 후보 회원이 많다.
+    java -jar build/libs/jpashop-0.0.1-SNAPSHOT-jmh.jar OrderMemberNameSearch -p orders=10000000 -p linesPerOrder=1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderMemberNameSearchBenchmark {
+    private OrderService orderService;
+    private OrderRepository orderRepository;
+    private int members;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderService = data.getBean(OrderService.class);
+        orderRepository = data.getBean(OrderRepository.class);
+        members = Math.max(1, data.orders / 10);
+    }
+
+    @Benchmark
+    public List<?> nameIndex(OrderData data, SqlCounters sql) {
+        OrderSearch orderSearch = randomSearch();
+        return data.read(() -> orderService.findOrders(orderSearch));
+    }
+
+    @Benchmark
+    public List<?> nameJoin(OrderData data, SqlCounters sql) {
+        OrderSearch orderSearch = randomSearch();
+        return data.read(() -> orderRepository.findAllByPrecompiled(orderSearch));
+    }
+
+    private OrderSearch randomSearch() {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("bench member " + ThreadLocalRandom.current().nextInt(members));
+        return orderSearch;
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.controller.OrderController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.ui.ExtendedModelMap;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static jpabook.jpashop.CacheConfig.ITEMS;
+import static jpabook.jpashop.CacheConfig.ITEM_LIST;
+
+/*
+    /order 지연 시간 분포 (p50 / p99 ...), 상품 카탈로그 캐시 유무 비교
+    - orderForm  : GET /order, 회원 / 상품 목록 화면 (상품 목록은 ItemService.findItems 캐시)
+    - placeOrder : POST /order, 주문 한 건
+    itemCache=false 는 호출 전에 상품 캐시를 비워서 매번 DB 에서 읽게 한다.
+    MVC / 뷰 렌더링은 빼고 OrderController 를 직접 호출한다. (WebApplicationType.NONE)
+    java -jar build/libs/jpashop-0.0.1-SNAPSHOT-jmh.jar OrderPageLatency -p items=1000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderPageLatencyBenchmark {
+    private static final int STOCK = 100_000_000;
+
+    @Param({"true", "false"})
+    public boolean itemCache;
+
+    private OrderController orderController;
+    private CacheManager cacheManager;
+    private JdbcTemplate jdbcTemplate;
+    private Long[] memberIds;
+    private Long[] itemIds;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderController = data.getBean(OrderController.class);
+        cacheManager = data.getBean(CacheManager.class);
+        jdbcTemplate = data.getBean(JdbcTemplate.class);
+        EntityManager em = data.getBean(EntityManager.class);
+        List<Long> members = data.read(() -> em.createQuery("select m.id from Member m", Long.class).getResultList());
+        List<Long> items = data.read(() -> em.createQuery("select i.id from Item i", Long.class).getResultList());
+        memberIds = members.toArray(new Long[0]);
+        itemIds = items.toArray(new Long[0]);
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        jdbcTemplate.update("update item set stock_quantity = ?", STOCK);
+    }
+
+    @Benchmark
+    public String orderForm(OrderData data) {
+        evictIfDisabled();
+        return data.call(() -> orderController.createForm(new ExtendedModelMap()));
+    }
+
+    @Benchmark
+    public String placeOrder(OrderData data) {
+        evictIfDisabled();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return data.call(() -> orderController.order(
+                memberIds[random.nextInt(memberIds.length)], itemIds[random.nextInt(itemIds.length)], 1));
+    }
+
+    private void evictIfDisabled() {
+        if (!itemCache) {
+            cacheManager.getCache(ITEMS).clear();
+            cacheManager.getCache(ITEM_LIST).clear();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.api.PageCursor;
+import jpabook.jpashop.repository.OrderApiController;
+import jpabook.jpashop.service.query.OrderQueryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/*
+    페이지 조회 비교, 같은 위치(depth)의 한 페이지를 offset 방식과 keyset(after 토큰) 방식으로 읽는다.
+    depth 는 전체 주문 중 몇 번째 주문부터 읽을지 비율 (0 = 첫 페이지, 0.9 = 뒤쪽 페이지)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderPagingBenchmark {
+    @Param({"0", "0.9"})
+    public double depth;
+    @Param("100")
+    public int limit;
+
+    private OrderApiController orders;
+    private OrderQueryService orderQueryService;
+    private int offset;
+    private String after;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orders = data.getBean(OrderApiController.class);
+        orderQueryService = data.getBean(OrderQueryService.class);
+        EntityManager em = data.getBean(EntityManager.class);
+
+        offset = (int) (data.orders * depth);
+        // offset 번째 주문 바로 앞의 주문 id 가 keyset 의 시작점
+        Long afterId = offset == 0 ? null : data.read(() -> em.createQuery("select o.id from Order o order by o.id", Long.class)
+                .setFirstResult(offset - 1)
+                .setMaxResults(1)
+                .getSingleResult());
+        after = afterId == null ? null : PageCursor.encode(afterId);
+    }
+
+    @Benchmark
+    public Object ordersV3_1_offset(OrderData data, SqlCounters sql) {
+        return data.<Object>read(() -> orders.ordersV3_page(offset, limit));
+    }
+
+    @Benchmark
+    public Object ordersV3_2_keyset(OrderData data, SqlCounters sql) {
+        return data.<Object>read(() -> orders.ordersV3_keyset(after, limit));
+    }
+
+    @Benchmark
+    public Object ordersV5_1_offset(OrderData data, SqlCounters sql) {
+        return data.<Object>read(() -> orders.ordersV5_page(offset, limit));
+    }
+
+    @Benchmark
+    public Object ordersV6_1_keyset(OrderData data, SqlCounters sql) {
+        return data.<Object>read(() -> orders.ordersV6_page(after, limit));
+    }
+
+    @Benchmark
+    public Object ordersV7_keyset(OrderData data, SqlCounters sql) {
+        // 컨트롤러는 ETag 확인용 WebRequest 가 필요하므로 요약 조회를 직접 호출한다
+        return data.<Object>read(() -> orderQueryService.findOrderSummaries(null, null, PageCursor.decode(after), limit + 1));
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.domain.exception.NotEnoughStockException;
+import jpabook.jpashop.domain.service.OrderCommand;
+import jpabook.jpashop.domain.service.OrderGroupCommitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    주문 저장 처리량 (orders/s), 주문마다 커밋 vs 그룹 커밋
+    -p groupCommit=false,true 로 비교한다. 동시에 주문하는 요청 수는 @Threads.
+    메모리 H2 는 커밋(fsync) 비용이 거의 없으므로 그룹 커밋의 효과는 실제 DB 에서 더 크게 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class OrderPlacementBenchmark {
+    private OrderGroupCommitter orderGroupCommitter;
+    private Long[] memberIds;
+    private Long[] itemIds;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderGroupCommitter = data.getBean(OrderGroupCommitter.class);
+        EntityManager em = data.getBean(EntityManager.class);
+        List<Long> members = data.read(() -> em.createQuery("select m.id from Member m", Long.class).getResultList());
+        List<Long> items = data.read(() -> em.createQuery("select i.id from Item i", Long.class).getResultList());
+        memberIds = members.toArray(new Long[0]);
+        itemIds = items.toArray(new Long[0]);
+    }
+
+    @Benchmark
+    public Long order() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        OrderCommand command = OrderCommand.of(memberIds[random.nextInt(memberIds.length)], itemIds[random.nextInt(itemIds.length)], 1);
+        try {
+            return orderGroupCommitter.order(command);
+        } catch (NotEnoughStockException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.api.OrderSimpleApiController;
+import jpabook.jpashop.repository.OrderApiController;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    주문 조회 전략 V1 ~ V6 비교
+    컨트롤러 메서드를 그대로 호출해서 리포지토리 조회와 DTO 조립까지 측정한다. (JSON 직렬화 제외)
+    처리량 + gc 프로파일러의 할당량(gc.alloc.rate.norm) + 호출당 SQL 수 (SqlCounters 보조 지표) 를 같이 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderReadBenchmark {
+    private OrderApiController orders;
+    private OrderSimpleApiController simpleOrders;
+    private OrderQueryRepository orderQueries;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orders = data.getBean(OrderApiController.class);
+        simpleOrders = data.getBean(OrderSimpleApiController.class);
+        orderQueries = data.getBean(OrderQueryRepository.class);
+    }
+
+    @Benchmark
+    public List<?> ordersV1_entity(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(orders::ordersV1);
+    }
+
+    @Benchmark
+    public List<?> ordersV2_dto(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(orders::ordersV2);
+    }
+
+    @Benchmark
+    public List<?> ordersV3_fetchJoin(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(orders::ordersV3);
+    }
+
+    @Benchmark
+    public List<?> ordersV4_queryDto(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(orders::ordersV4);
+    }
+
+    @Benchmark
+    public List<?> ordersV5_inQuery(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(orderQueries::findAllByDto_optimization); // 컨트롤러는 ETag 확인용 WebRequest 가 필요하다
+    }
+
+    @Benchmark
+    public List<?> ordersV6_flat(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(orders::ordersV6);
+    }
+
+    @Benchmark
+    public List<?> simpleOrdersV1_entity(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(simpleOrders::ordersV1);
+    }
+
+    @Benchmark
+    public List<?> simpleOrdersV2_dto(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(simpleOrders::ordersV2);
+    }
+
+    @Benchmark
+    public List<?> simpleOrdersV3_fetchJoin(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(simpleOrders::ordersV3);
+    }
+
+    @Benchmark
+    public List<?> simpleOrdersV4_queryDto(OrderData data, SqlCounters sql) {
+        return data.<List<?>>read(simpleOrders::ordersV4);
+    }
+}
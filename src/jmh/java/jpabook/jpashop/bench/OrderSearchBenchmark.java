@@ -0,0 +1,62 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    주문 검색 쿼리 생성 방식 비교
+    string      : 호출마다 JPQL 문자열 조립 (findAllByString)
+    criteria    : 호출마다 Criteria 트리 생성 (findAllByCriteria)
+    precompiled : 기동시 등록한 named query 선택 (findAllByPrecompiled)
+    같은 조건(주문상태 + 주문일)으로 검색한다. 회원 이름 검색은 OrderMemberNameSearchBenchmark 에서 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderSearchBenchmark {
+    @Param({"status", "status+date"})
+    public String filters;
+
+    private OrderRepository orderRepository;
+    private OrderSearch orderSearch;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderRepository = data.getBean(OrderRepository.class);
+
+        orderSearch = new OrderSearch();
+        orderSearch.setOrderStatus(OrderStatus.ORDER);
+        if (filters.contains("date")) {
+            orderSearch.setOrderDateFrom(LocalDate.now().minusDays(1));
+            orderSearch.setOrderDateTo(LocalDate.now());
+        }
+    }
+
+    @Benchmark
+    public List<?> string(OrderData data, SqlCounters sql) {
+        return data.read(() -> orderRepository.findAllByString(orderSearch));
+    }
+
+    @Benchmark
+    public List<?> criteria(OrderData data, SqlCounters sql) {
+        return data.read(() -> orderRepository.findAllByCriteria(orderSearch));
+    }
+
+    @Benchmark
+    public List<?> precompiled(OrderData data, SqlCounters sql) {
+        return data.read(() -> orderRepository.findAllByPrecompiled(orderSearch));
+    }
+}
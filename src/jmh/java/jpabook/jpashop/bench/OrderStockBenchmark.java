@@ -0,0 +1,86 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.domain.exception.NotEnoughStockException;
+import jpabook.jpashop.domain.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    주문 처리량 (orders/s), 재고는 조건부 UPDATE 한번으로 차감한다 (ItemRepository.removeStock)
+    동시에 주문하는 스레드 수 1 / 8 / 64 별로 측정한다.
+    hotItems 는 주문이 몰리는 상품 수, 1 이면 모든 주문이 같은 재고 row 의 락을 기다린다.
+    iteration 마다 재고를 다시 채워서 재고 부족으로 빨리 끝나는 주문이 섞이지 않게 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderStockBenchmark {
+    private static final int STOCK = 100_000_000;
+
+    @Param({"1", "100"})
+    public int hotItems;
+
+    private OrderService orderService;
+    private JdbcTemplate jdbcTemplate;
+    private Long[] memberIds;
+    private Long[] itemIds;
+
+    @Setup
+    public void setUp(OrderData data) {
+        orderService = data.getBean(OrderService.class);
+        jdbcTemplate = data.getBean(JdbcTemplate.class);
+        EntityManager em = data.getBean(EntityManager.class);
+        List<Long> members = data.read(() -> em.createQuery("select m.id from Member m", Long.class).getResultList());
+        List<Long> items = data.read(() -> em.createQuery("select i.id from Item i order by i.id", Long.class)
+                .setMaxResults(hotItems)
+                .getResultList());
+        memberIds = members.toArray(new Long[0]);
+        itemIds = items.toArray(new Long[0]);
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        jdbcTemplate.update("update item set stock_quantity = ?", STOCK);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Long order_1thread() {
+        return order();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Long order_8threads() {
+        return order();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Long order_64threads() {
+        return order();
+    }
+
+    private Long order() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            return orderService.order(memberIds[random.nextInt(memberIds.length)], itemIds[random.nextInt(itemIds.length)], 1);
+        } catch (NotEnoughStockException e) {
+            return null;
+        }
+    }
+}
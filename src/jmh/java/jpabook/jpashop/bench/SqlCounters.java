@@ -0,0 +1,46 @@
+package jpabook.jpashop.bench;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+    벤치마크 호출 한번에 실행된 SQL 수와 쿼리 플랜 캐시 적중률
+    JMH 보조 지표(@AuxCounters)라서 점수와 함께 결과 표와 -rf json 결과에 나온다.
+    benchmark 메서드가 이 state 를 인자로 받아야 집계된다.
+    Hibernate Statistics 는 JVM 전체 값이므로 단일 스레드 벤치마크에서만 의미가 있다.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SqlCounters {
+    private OrderData data;
+    private Statistics statistics;
+    private long operationsAtStart;
+    private long statementsAtStart;
+    private long planHitsAtStart;
+    private long planMissesAtStart;
+
+    @Setup(Level.Iteration)
+    public void start(OrderData data) {
+        this.data = data;
+        statistics = data.getStatistics();
+        operationsAtStart = data.getOperations();
+        statementsAtStart = statistics.getPrepareStatementCount();
+        planHitsAtStart = statistics.getQueryPlanCacheHitCount();
+        planMissesAtStart = statistics.getQueryPlanCacheMissCount();
+    }
+
+    public double sqlStatementsPerOp() {
+        long operations = data.getOperations() - operationsAtStart;
+        return operations == 0 ? 0 : (double) (statistics.getPrepareStatementCount() - statementsAtStart) / operations;
+    }
+
+    public double queryPlanCacheHitRatio() {
+        long hits = statistics.getQueryPlanCacheHitCount() - planHitsAtStart;
+        long lookups = hits + statistics.getQueryPlanCacheMissCount() - planMissesAtStart;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,126 @@
+package jpabook.jpashop.bench;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.service.ItemService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    같은 상품 재고를 여러 스레드가 동시에 읽고-더하고-쓸 때 (재고 입고)
+    - noLocking         : 락 / version 없이 읽고 쓴다. 빠르지만 동시에 쓰면 갱신이 유실된다 (@Version 추가 전의 동작)
+    - optimisticRetry   : ItemService.addStock, version 충돌이면 @RetryOnConflict 로 다시 시도
+    - selectForUpdate   : select ... for update 로 row 를 잡고 쓴다
+    hotItems 가 작을수록 (같은 상품에 몰릴수록) 충돌이 많다. 재시도 / 포기 수는 보조 지표(Conflicts)로 결과 표에 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class StockContentionBenchmark {
+    @Param({"1", "16"})
+    public int hotItems;
+
+    private ItemService itemService;
+    private JdbcTemplate jdbcTemplate;
+    private EntityManager em;
+    private TransactionTemplate tx;
+    private Long[] itemIds;
+
+    @Setup
+    public void setUp(OrderData data) {
+        itemService = data.getBean(ItemService.class);
+        jdbcTemplate = data.getBean(JdbcTemplate.class);
+        em = data.getBean(EntityManager.class);
+        tx = new TransactionTemplate(data.getBean(PlatformTransactionManager.class));
+
+        List<Long> ids = data.read(() -> em.createQuery("select i.id from Item i order by i.id", Long.class)
+                .setMaxResults(hotItems)
+                .getResultList());
+        itemIds = ids.toArray(new Long[0]);
+    }
+
+    @Benchmark
+    public void noLocking() {
+        Long itemId = hotItem();
+        tx.executeWithoutResult(status -> {
+            Integer stock = jdbcTemplate.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+            jdbcTemplate.update("update item set stock_quantity = ? where item_id = ?", stock + 1, itemId);
+        });
+    }
+
+    @Benchmark
+    public boolean optimisticRetry(Conflicts conflicts) {
+        try {
+            itemService.addStock(hotItem(), 1);
+            return true;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return false; // 재시도 횟수 초과, 처리량에는 포함되고 optimisticExhausted 로 센다
+        }
+    }
+
+    @Benchmark
+    public void selectForUpdate() {
+        Long itemId = hotItem();
+        tx.executeWithoutResult(status -> em.find(Item.class, itemId, LockModeType.PESSIMISTIC_WRITE).addStock(1));
+    }
+
+    private Long hotItem() {
+        return itemIds[ThreadLocalRandom.current().nextInt(itemIds.length)];
+    }
+
+    /*
+    낙관적 락 재시도 / 포기 수 (jpashop.retry.conflicts 메트릭의 iteration 동안 증가분)
+    메트릭은 JVM 전체 값이므로 첫 번째 스레드만 증가분을 보고하고 나머지 스레드는 0 을 보고한다. (EVENTS 는 스레드 합계)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Conflicts {
+        private MeterRegistry meterRegistry;
+        private boolean reporting;
+        private double retriedAtStart;
+        private double exhaustedAtStart;
+
+        @Setup(Level.Iteration)
+        public void start(OrderData data, ThreadParams threadParams) {
+            meterRegistry = data.getBean(MeterRegistry.class);
+            reporting = threadParams.getThreadIndex() == 0;
+            retriedAtStart = count("retried");
+            exhaustedAtStart = count("exhausted");
+        }
+
+        public double optimisticRetried() {
+            return reporting ? count("retried") - retriedAtStart : 0;
+        }
+
+        public double optimisticExhausted() {
+            return reporting ? count("exhausted") - exhaustedAtStart : 0;
+        }
+
+        private double count(String outcome) {
+            return meterRegistry.find("jpashop.retry.conflicts").tag("outcome", outcome).counters().stream()
+                    .mapToDouble(counter -> counter.count())
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.bench.id;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+
+// 벤치마크 전용, persist 즉시 insert 해서 DB 가 만든 값을 받는다 (insert 배치가 꺼진다)
+@Entity
+public class IdentityRow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String payload;
+
+    protected IdentityRow() {
+    }
+
+    public IdentityRow(String payload) {
+        this.payload = payload;
+    }
+}
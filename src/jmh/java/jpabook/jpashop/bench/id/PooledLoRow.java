@@ -0,0 +1,21 @@
+package jpabook.jpashop.bench.id;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+// 벤치마크 전용, 주문 / 회원과 같은 pooled_lo (시퀀스 한번에 50개)
+@Entity
+public class PooledLoRow {
+    @Id
+    @GeneratedValue(generator = "pooled_lo")
+    private Long id;
+    private String payload;
+
+    protected PooledLoRow() {
+    }
+
+    public PooledLoRow(String payload) {
+        this.payload = payload;
+    }
+}
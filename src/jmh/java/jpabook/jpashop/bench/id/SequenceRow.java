@@ -0,0 +1,24 @@
+package jpabook.jpashop.bench.id;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+// 벤치마크 전용, persist 마다 시퀀스를 한번씩 호출한다 (블록 없이)
+@Entity
+public class SequenceRow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequence_row_seq")
+    @SequenceGenerator(name = "sequence_row_seq", allocationSize = 1)
+    private Long id;
+    private String payload;
+
+    protected SequenceRow() {
+    }
+
+    public SequenceRow(String payload) {
+        this.payload = payload;
+    }
+}
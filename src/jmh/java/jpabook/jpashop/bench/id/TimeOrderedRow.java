@@ -0,0 +1,21 @@
+package jpabook.jpashop.bench.id;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+// 벤치마크 전용, 주문상품과 같은 time_ordered (DB 호출 없음)
+@Entity
+public class TimeOrderedRow {
+    @Id
+    @GeneratedValue(generator = "time_ordered")
+    private Long id;
+    private String payload;
+
+    protected TimeOrderedRow() {
+    }
+
+    public TimeOrderedRow(String payload) {
+        this.payload = payload;
+    }
+}
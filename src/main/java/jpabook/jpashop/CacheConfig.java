@@ -0,0 +1,38 @@
+package jpabook.jpashop;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/*
+    상품 카탈로그 캐시
+    items    : 상품 id -> ItemView, ItemService.findOne
+    itemList : 전체 상품 목록, ItemService.findItems
+    크기와 TTL 로 제한하고, 적중/미스 통계는 actuator 의 cache.gets 메트릭으로 확인한다.
+    TransactionAwareCacheManagerProxy 로 감싸서 트랜잭션 안의 put/evict 는 커밋 후에 반영된다.
+    (커밋 전에 지우면 다른 요청이 이전 값을 다시 캐시에 넣을 수 있다)
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String ITEMS = "items";
+    public static final String ITEM_LIST = "itemList";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${jpashop.cache.items.maximum-size:1000}") long maximumSize,
+                                     @Value("${jpashop.cache.items.expire-after-write:10m}") Duration expireAfterWrite) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(ITEMS, ITEM_LIST);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
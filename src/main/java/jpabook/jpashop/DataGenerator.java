@@ -0,0 +1,284 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/*
+    부하 테스트용 대량 데이터 생성 (InitDb 는 데이터가 4건 뿐이라 운영 규모의 동작을 볼 수 없다)
+    --spring.profiles.active=datagen 또는 --jpashop.datagen.enabled=true 로 켠다.
+
+    카테고리 -> 상품 -> 회원 -> 주문 순서로, 단계마다 chunk-size 건씩 나눠 workers 개의 스레드가 각자 트랜잭션으로 저장한다.
+    JDBC 배치(hibernate.jdbc.batch_size)로 insert 하고, 배치 크기마다 flush / clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+    상품 / 회원 id 는 배열로 들고 있다가 주문을 만들 때 사용한다. (다시 조회하지 않는다)
+
+    주문
+    - 주문상품 수 : 1개가 가장 많고 갈수록 줄어드는 기하분포 (평균 약 2개, 최대 max-lines-per-order)
+    - 상품 선택   : 앞쪽 상품일수록 많이 팔리도록 치우친 분포 (인기 상품)
+    - 주문일      : 최근 1년 안에서 고르게, 5% 는 취소, 3일 지난 주문은 배송완료
+    - 재고        : 생성한 주문만큼 차감하지 않는다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.datagen.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class DataGenerator implements ApplicationRunner {
+    private static final int FLUSH_INTERVAL = 100; // hibernate.jdbc.batch_size 와 맞춘다
+    private static final long ONE_YEAR_SECONDS = 365L * 24 * 60 * 60;
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "진주"};
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${jpashop.datagen.categories:100}")
+    private int categories;
+    @Value("${jpashop.datagen.items:10000}")
+    private int items;
+    @Value("${jpashop.datagen.members:100000}")
+    private int members;
+    @Value("${jpashop.datagen.orders:1000000}")
+    private int orders;
+    @Value("${jpashop.datagen.max-lines-per-order:10}")
+    private int maxLinesPerOrder;
+    @Value("${jpashop.datagen.workers:4}")
+    private int workers;
+    @Value("${jpashop.datagen.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${jpashop.datagen.seed:42}")
+    private long seed;
+
+    private long[] categoryIds;
+    private long[] itemIds;
+    private int[] itemPrices;
+    private long[] memberIds;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        log.info("datagen start: categories={}, items={}, members={}, orders={}, workers={}, chunk-size={}",
+                categories, items, members, orders, workers, chunkSize);
+        categoryIds = new long[categories];
+        itemIds = new long[items];
+        itemPrices = new int[items];
+        memberIds = new long[members];
+        LocalDateTime now = LocalDateTime.now();
+
+        long startedAt = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            long rows = 0;
+            rows += generate(executor, "categories", categories, Math.max(1, categories), this::insertCategories); // 부모가 먼저 저장되도록 한번에
+            rows += generate(executor, "items", items, chunkSize, this::insertItems);
+            rows += generate(executor, "members", members, chunkSize, this::insertMembers);
+            if (items > 0 && members > 0) {
+                rows += generate(executor, "orders", orders, chunkSize, (from, to, random) -> insertOrders(from, to, random, now));
+            }
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+            log.info("datagen done: {} rows in {} ms ({} rows/s)", rows, elapsedMillis, rows * 1000 / elapsedMillis);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // [0, total) 를 chunk 단위 트랜잭션으로 나눠 병렬로 저장하고, 저장한 row 수를 반환한다
+    private long generate(ExecutorService executor, String name, int total, int chunk, ChunkWriter writer) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int from = 0; from < total; from += chunk) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(total, from + chunk);
+            SplittableRandom random = new SplittableRandom(seed * 31 + name.hashCode() * 31L + from); // 같은 seed 면 같은 데이터
+            futures.add(executor.submit(() -> tx.execute(status -> writer.write(chunkFrom, chunkTo, random))));
+        }
+
+        long rows = 0;
+        for (Future<Long> future : futures) {
+            try {
+                rows += future.get();
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("datagen " + name + " 생성 실패", e.getCause());
+            }
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        log.info("datagen {}: {} rows in {} ms ({} rows/s)", name, rows, elapsedMillis, rows * 1000 / elapsedMillis);
+        return rows;
+    }
+
+    // 10개 중 1개는 최상위, 나머지는 최상위 카테고리의 자식
+    private long insertCategories(int from, int to, SplittableRandom random) {
+        int roots = Math.max(1, categories / 10);
+        Category[] created = new Category[to];
+        for (int i = from; i < to; i++) {
+            Category category = new Category();
+            category.setName("category-" + i);
+            if (i >= roots) {
+                created[random.nextInt(roots)].addChildCategory(category);
+            }
+            em.persist(category);
+            created[i] = category;
+            categoryIds[i] = category.getId();
+        }
+        return to - from;
+    }
+
+    // 상품 6 : 음반 2 : 영화 2, 상품마다 카테고리 하나
+    private long insertItems(int from, int to, SplittableRandom random) {
+        List<Object[]> categoryItems = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Item item = createItem(i, random);
+            em.persist(item);
+            itemIds[i] = item.getId();
+            itemPrices[i] = item.getPrice();
+            if (categories > 0) {
+                categoryItems.add(new Object[]{categoryIds[random.nextInt(categories)], item.getId()});
+            }
+            if ((i - from + 1) % FLUSH_INTERVAL == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        // Category.items 는 컬렉션을 초기화해야 추가할 수 있으므로 중간 테이블은 직접 insert
+        jdbcTemplate.batchUpdate("insert into category_item (category_id, item_id) values (?, ?)", categoryItems);
+        return (to - from) + categoryItems.size();
+    }
+
+    private long insertMembers(int from, int to, SplittableRandom random) {
+        for (int i = from; i < to; i++) {
+            Member member = new Member();
+            member.setName("member-" + i);
+            member.setAddress(new Address(CITIES[random.nextInt(CITIES.length)], "street " + random.nextInt(1000), String.format("%05d", random.nextInt(100000))));
+            em.persist(member);
+            memberIds[i] = member.getId();
+            if ((i - from + 1) % FLUSH_INTERVAL == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        return to - from;
+    }
+
+    /*
+    주문 -> 회원 연관관계 메서드가 member.getOrders() 를 사용하므로 회원은 프록시가 아니라 엔티티여야 한다.
+    FLUSH_INTERVAL 건마다 주문자를 먼저 정하고 IN 쿼리 한번으로 조회한 뒤 저장하고 flush / clear 한다.
+    clear 하면 조회해 둔 회원도 준영속이 되므로 구간마다 다시 조회한다. (영속성 컨텍스트는 구간 크기를 넘지 않는다)
+     */
+    private long insertOrders(int from, int to, SplittableRandom random, LocalDateTime now) {
+        long rows = 0;
+        for (int sliceFrom = from; sliceFrom < to; sliceFrom += FLUSH_INTERVAL) {
+            long[] buyers = new long[Math.min(FLUSH_INTERVAL, to - sliceFrom)];
+            for (int k = 0; k < buyers.length; k++) {
+                buyers[k] = memberIds[random.nextInt(members)];
+            }
+            Map<Long, Member> buyerMap = em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                    .setParameter("ids", LongStream.of(buyers).distinct().boxed().collect(Collectors.toList()))
+                    .getResultStream()
+                    .collect(Collectors.toMap(Member::getId, Function.identity()));
+
+            for (long buyer : buyers) {
+                rows += insertOrder(buyerMap.get(buyer), random, now);
+            }
+            em.flush();
+            em.clear();
+        }
+        return rows;
+    }
+
+    // 저장한 row 수 (주문, 배송, 주문상품)
+    private int insertOrder(Member member, SplittableRandom random, LocalDateTime now) {
+        OrderItem[] orderItems = new OrderItem[lineCount(random)];
+        for (int l = 0; l < orderItems.length; l++) {
+            int item = popularItem(random);
+            orderItems[l] = OrderItem.createReservedOrderItem(em.getReference(Item.class, itemIds[item]), itemPrices[item], 1 + random.nextInt(3));
+        }
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+
+        Order order = Order.createOrder(member, delivery, orderItems);
+        order.setOrderDate(now.minusSeconds(random.nextLong(ONE_YEAR_SECONDS)));
+        if (random.nextInt(100) < 5) {
+            order.setStatus(OrderStatus.CANCEL);
+        } else if (order.getOrderDate().isBefore(now.minusDays(3))) {
+            delivery.setStatus(DeliveryStatus.COMP);
+        }
+        em.persist(order);
+        return 2 + orderItems.length;
+    }
+
+    // 1개일 확률 55%, 그 뒤로 45% 씩 줄어든다
+    private int lineCount(SplittableRandom random) {
+        int lines = 1;
+        while (lines < maxLinesPerOrder && random.nextInt(100) < 45) {
+            lines++;
+        }
+        return lines;
+    }
+
+    // u^3 으로 앞쪽 인덱스에 몰리게 한다, 상위 10% 상품이 주문상품의 절반 가까이를 차지
+    private int popularItem(SplittableRandom random) {
+        double u = random.nextDouble();
+        return (int) (items * u * u * u);
+    }
+
+    private Item createItem(int index, SplittableRandom random) {
+        int kind = random.nextInt(10);
+        Item item;
+        if (kind < 6) {
+            Book book = new Book();
+            book.setAuthor("author-" + random.nextInt(10000));
+            book.setIsbn(String.format("%013d", 9_780_000_000_000L + index));
+            item = book;
+        } else if (kind < 8) {
+            Album album = new Album();
+            album.setArtist("artist-" + random.nextInt(5000));
+            item = album;
+        } else {
+            Movie movie = new Movie();
+            movie.setDirector("director-" + random.nextInt(2000));
+            movie.setActor("actor-" + random.nextInt(20000));
+            item = movie;
+        }
+        item.setName(item.getClass().getSimpleName().toLowerCase() + "-" + index);
+        item.setPrice((1 + random.nextInt(1000)) * 100);
+        item.setStockQuantity(100 + random.nextInt(10000));
+        return item;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        long write(int from, int to, SplittableRandom random);
+    }
+}
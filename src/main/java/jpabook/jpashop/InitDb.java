@@ -36,6 +36,7 @@ public class InitDb {
             OrderItem orderItem2 = OrderItem.createOrderItem(book2, 20000, 2);
             Order order = Order.createOrder(member, createDelivery(member), orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order));
         }
 
         public void dbInit2() {
@@ -54,6 +55,7 @@ public class InitDb {
             OrderItem orderItem2 = OrderItem.createOrderItem(book2, 40000, 4);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order));
         }
 
         private Member createMember(String name, String city, String street,
@@ -0,0 +1,137 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.domain.service.CategoryService;
+import jpabook.jpashop.domain.service.CategoryTree;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+    카테고리 탐색
+    Category.items (@ManyToMany) 는 건드리면 category_item 전체를 읽으므로 사용하지 않는다.
+    트리는 메모리 스냅샷(CategoryTree)에서, 상품 수는 집계 쿼리 한번, 상품은 category_item 을 keyset 으로 페이징한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+    private final CategoryService categoryService;
+    private final CategoryTree categoryTree;
+
+    // 카테고리 트리와 카테고리별 상품 수, 쿼리 한번 (상품 수 집계)
+    @GetMapping("/api/v1/categories")
+    public Result<List<CategoryDto>> categories() {
+        CategoryTree.Snapshot tree = categoryTree.get();
+        Map<Long, Long> itemCounts = categoryService.countItemsByCategory();
+
+        List<CategoryDto> roots = tree.getRoots().stream()
+                .map(root -> new CategoryDto(root, tree, itemCounts))
+                .collect(Collectors.toList());
+        return new Result<>(roots);
+    }
+
+    /*
+    카테고리의 상품, item_id 순으로 limit 건씩
+    다음 페이지는 응답의 next 토큰을 after 로 넘긴다. subtree=true 면 자손 카테고리의 상품까지
+    Book / Album / Movie 전용 컬럼도 같은 쿼리로 읽는다. (싱글 테이블)
+     */
+    @GetMapping("/api/v1/categories/{categoryId}/items")
+    public ItemPage categoryItems(
+            @PathVariable("categoryId") Long categoryId,
+            @RequestParam(value = "subtree", defaultValue = "false") boolean subtree,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        PageCursor.checkLimit(limit);
+        List<Item> items = categoryService.findItemsPage(categoryId, subtree, PageCursor.decode(after), limit + 1);
+
+        boolean hasNext = items.size() > limit;
+        if (hasNext) {
+            items = items.subList(0, limit);
+        }
+
+        List<ItemDto> result = items.stream()
+                .map(ItemDto::new)
+                .collect(Collectors.toList());
+
+        String next = hasNext ? PageCursor.encode(items.get(items.size() - 1).getId()) : null;
+        return new ItemPage(result, next);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private T data;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ItemPage {
+        private List<ItemDto> data;
+        private String next; // 다음 페이지 토큰, 마지막 페이지면 null
+    }
+
+    @Data
+    static class CategoryDto {
+        private Long id;
+        private String name;
+        private long itemCount; // 이 카테고리에 직접 속한 상품 수
+        private List<CategoryDto> children;
+
+        CategoryDto(CategoryTree.Node node, CategoryTree.Snapshot tree, Map<Long, Long> itemCounts) {
+            id = node.getId();
+            name = node.getName();
+            itemCount = itemCounts.getOrDefault(node.getId(), 0L);
+            children = tree.getChildren(node.getId()).stream()
+                    .map(child -> new CategoryDto(child, tree, itemCounts))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // 상품 종류별 컬럼은 해당 종류에만 내려간다
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class ItemDto {
+        private Long id;
+        private String type;
+        private String name;
+        private int price;
+        private int stockQuantity;
+        private String author;      // Book
+        private String isbn;        // Book
+        private String artist;      // Album
+        private String etc;         // Album
+        private String director;    // Movie
+        private String actor;       // Movie
+
+        ItemDto(Item item) {
+            id = item.getId();
+            type = item.getClass().getSimpleName();
+            name = item.getName();
+            price = item.getPrice();
+            stockQuantity = item.getStockQuantity();
+            if (item instanceof Book) {
+                author = ((Book) item).getAuthor();
+                isbn = ((Book) item).getIsbn();
+            } else if (item instanceof Album) {
+                artist = ((Album) item).getArtist();
+                etc = ((Album) item).getEtc();
+            } else if (item instanceof Movie) {
+                director = ((Movie) item).getDirector();
+                actor = ((Movie) item).getActor();
+            }
+        }
+    }
+}
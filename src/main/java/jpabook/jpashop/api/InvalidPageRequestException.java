@@ -0,0 +1,16 @@
+package jpabook.jpashop.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// 잘못된 페이지 토큰 / limit, 클라이언트 요청 오류이므로 500 이 아니라 400 으로 응답한다
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageRequestException extends IllegalArgumentException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidPageRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
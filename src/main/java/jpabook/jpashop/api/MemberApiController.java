@@ -1,13 +1,17 @@
 package jpabook.jpashop.api;
 
 
+import jpabook.jpashop.datasource.ReadYourWrites;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.service.MemberService;
+import jpabook.jpashop.domain.service.ResourceVersions;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
@@ -18,6 +22,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MemberApiController {
     private final MemberService memberService;
+    private final ResourceVersions resourceVersions;
 
     /*
     이 방법을 사용하면 모든 엔티티의 정보가 노출됨
@@ -31,9 +36,16 @@ public class MemberApiController {
     /*
     Dto 를 통해 노출되는 엔티티의 정보를 지정하여 반환한다
     바로 반환하면 배열 형식으로 반환하기 때문에 한번 감싸주는 형태
+    회원 목록 버전으로 ETag / Last-Modified 를 내려주고, 그 사이 회원 변경이 없으면 조회 없이 304 를 반환한다
      */
     @GetMapping("/api/v2/members")
-    public Result memberV2() {
+    public Result memberV2(WebRequest request) {
+        ResourceVersions.Stamp stamp = resourceVersions.get(Resource.MEMBERS);
+        if (request.checkNotModified(stamp.getEtag(), stamp.getLastModified())) {
+            return null;
+        }
+        ReadYourWrites.readPrimary(); // 복제 지연된 목록이 새 ETag 로 캐시되지 않도록
+
         List<Member> findMembers = memberService.findMembers();
         List<MemberDto> collect = findMembers.stream()
                 .map(m -> new MemberDto(m.getName()))
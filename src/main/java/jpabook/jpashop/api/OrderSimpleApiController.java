@@ -6,9 +6,11 @@ import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.OrderSimpleQueryDto;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -114,6 +116,40 @@ public class OrderSimpleApiController {
         return orderRepository.findOrderDtos();
     }
 
+    /*
+    주문금액이 큰 순서로 조회, V4 와 같은 DTO 조회에 저장된 주문금액(o.totalPrice)으로 정렬한다.
+    주문금액을 계산하려고 주문상품(order_item)을 조인하거나 지연 로딩하지 않는다.
+    다음 페이지는 응답의 next 토큰을 after 로 넘긴다. (주문금액, 주문 id) keyset 이라 뒤쪽 페이지도 offset 만큼 건너뛰지 않는다.
+     */
+    @GetMapping("/api/v5/simple-orders")
+    public SimpleOrderPage ordersV5(
+            @RequestParam(value = "minTotalPrice", required = false) Integer minTotalPrice,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        PageCursor.checkLimit(limit);
+        PageCursor.PriceKey key = PageCursor.decodePriceKey(after);
+        List<OrderSimpleQueryDto> orders = key == null
+                ? orderRepository.findOrderDtosByTotalPrice(minTotalPrice, null, null, limit + 1)
+                : orderRepository.findOrderDtosByTotalPrice(minTotalPrice, key.getTotalPrice(), key.getId(), limit + 1);
+
+        boolean hasNext = orders.size() > limit;
+        if (hasNext) {
+            orders = orders.subList(0, limit);
+        }
+
+        OrderSimpleQueryDto last = hasNext ? orders.get(orders.size() - 1) : null;
+        String next = last == null ? null : PageCursor.encode(last.getTotalPrice(), last.getOrderId());
+        return new SimpleOrderPage(orders, next);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class SimpleOrderPage {
+        private List<OrderSimpleQueryDto> data;
+        private String next; // 다음 페이지 토큰, 마지막 페이지면 null
+    }
+
     // @Data 어노테이션 종합세트
     @Data
     static class SimpleOrderDto {
@@ -122,6 +158,7 @@ public class OrderSimpleApiController {
         private LocalDateTime orderDate;
         private OrderStatus orderStatus;
         private Address address;
+        private int totalPrice;
 
         public SimpleOrderDto(Order order) {
             orderId = order.getId();
@@ -129,6 +166,7 @@ public class OrderSimpleApiController {
             orderDate = order.getOrderDate();
             orderStatus = order.getStatus();
             address = order.getDelivery().getAddress();
+            totalPrice = order.getTotalPrice(); // 저장된 값, 주문상품을 읽지 않는다
         }
     }
 }
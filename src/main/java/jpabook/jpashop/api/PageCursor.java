@@ -0,0 +1,100 @@
+package jpabook.jpashop.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+    Keyset(seek) 페이징용 연속 토큰
+    클라이언트에게는 마지막으로 조회한 식별자를 그대로 노출하지 않고, 불투명한 문자열로 감싸서 전달한다.
+    토큰 형식이 바뀌어도 API 스펙은 그대로 유지할 수 있다.
+    잘못된 토큰이나 범위를 벗어난 limit 은 InvalidPageRequestException (400)
+ */
+public final class PageCursor {
+    public static final int MAX_LIMIT = 1000; // 한 페이지 최대 건수
+    private static final String PREFIX = "id:";
+    private static final String PRICE_PREFIX = "price:"; // 주문금액순 페이지, price:<주문금액>:<식별자>
+
+    private PageCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        byte[] bytes = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // 주문금액순 페이지의 마지막 (주문금액, 식별자)
+    public static String encode(int totalPrice, Long lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        byte[] bytes = (PRICE_PREFIX + totalPrice + ":" + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // 한 페이지 크기는 1 ~ MAX_LIMIT
+    public static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidPageRequestException("limit 은 1 이상 " + MAX_LIMIT + " 이하여야 합니다.");
+        }
+        return limit;
+    }
+
+    // 토큰이 없으면 처음부터 조회
+    public static Long decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new InvalidPageRequestException("잘못된 페이지 토큰입니다.");
+            }
+            return Long.valueOf(value.substring(PREFIX.length()));
+        } catch (InvalidPageRequestException e) {
+            throw e;
+        } catch (IllegalArgumentException e) { // Base64 오류, NumberFormatException 포함
+            throw new InvalidPageRequestException("잘못된 페이지 토큰입니다.", e);
+        }
+    }
+
+    // 주문금액순 토큰, 없으면 null (처음부터 조회)
+    public static PriceKey decodePriceKey(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':', PRICE_PREFIX.length());
+            if (!value.startsWith(PRICE_PREFIX) || separator < 0) {
+                throw new InvalidPageRequestException("잘못된 페이지 토큰입니다.");
+            }
+            return new PriceKey(Integer.parseInt(value.substring(PRICE_PREFIX.length(), separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (InvalidPageRequestException e) {
+            throw e;
+        } catch (IllegalArgumentException e) { // Base64 오류, NumberFormatException 포함
+            throw new InvalidPageRequestException("잘못된 페이지 토큰입니다.", e);
+        }
+    }
+
+    public static final class PriceKey {
+        private final int totalPrice;
+        private final Long id;
+
+        private PriceKey(int totalPrice, Long id) {
+            this.totalPrice = totalPrice;
+            this.id = id;
+        }
+
+        public int getTotalPrice() {
+            return totalPrice;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+}
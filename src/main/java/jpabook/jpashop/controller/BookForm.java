@@ -6,6 +6,7 @@ import lombok.Setter;
 @Getter @Setter
 public class BookForm {
     private Long id; // 수정을 위한
+    private Long version; // 폼을 열 때의 상품 version, 그 사이 다른 수정이 있으면 충돌
 
     private String name;
     private int price;
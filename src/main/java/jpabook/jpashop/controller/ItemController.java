@@ -1,16 +1,22 @@
 package jpabook.jpashop.controller;
 
+import jpabook.jpashop.datasource.ReadYourWrites;
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.domain.service.ItemService;
+import jpabook.jpashop.domain.service.ItemView;
+import jpabook.jpashop.domain.service.ResourceVersions;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,6 +24,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping("/items/new")
     public String createForm(Model model) {
@@ -39,24 +46,23 @@ public class ItemController {
         return "redirect:/items";
     }
 
+    // 상품이 바뀌지 않았으면 조회 / 렌더링 없이 304
     @GetMapping("/items")
-    public String list(Model model) {
-        List<Item> items = itemService.findItems();
+    public String list(Model model, WebRequest request) {
+        ResourceVersions.Stamp stamp = resourceVersions.get(Resource.ITEMS);
+        if (request.checkNotModified(stamp.getEtag(), stamp.getLastModified())) {
+            return null;
+        }
+        ReadYourWrites.readPrimary(); // 복제 지연된 목록이 새 ETag 로 캐시되지 않도록
+        List<ItemView> items = itemService.findItems();
         model.addAttribute("items", items);
         return "items/itemList";
     }
 
     @GetMapping("/items/{itemId}/edit")
     public String updateItemForm(@PathVariable("itemId") Long itemId, Model model) {
-        Book item = (Book) itemService.findOne(itemId);
-
         BookForm form = new BookForm();
-        form.setId(item.getId());
-        form.setName(item.getName());
-        form.setPrice(item.getPrice());
-        form.setStockQuantity(item.getStockQuantity());
-        form.setAuthor(item.getAuthor());
-        form.setIsbn(item.getIsbn());
+        fillForm(form, itemService.findForUpdate(itemId));
 
         model.addAttribute("form", form);
         return "items/updateItemForm";
@@ -64,16 +70,34 @@ public class ItemController {
 
     /**
      *상품 수정,권장 코드
+     * 폼을 연 뒤에 다른 사용자가 수정했거나 주문으로 재고가 바뀌었으면 덮어쓰지 않고 최신 값과 함께 다시 보여준다.
      */
     @PostMapping(value = "/items/{itemId}/edit")
     public String updateItem(@PathVariable Long itemId, @ModelAttribute("form")
-    BookForm form) {
-        itemService.updateItem(
-                itemId,
-                form.getName(),
-                form.getPrice(),
-                form.getStockQuantity()
-        );
+    BookForm form, BindingResult result) {
+        try {
+            itemService.updateItem(
+                    itemId,
+                    form.getVersion(),
+                    form.getName(),
+                    form.getPrice(),
+                    form.getStockQuantity()
+            );
+        } catch (ObjectOptimisticLockingFailureException e) {
+            fillForm(form, itemService.findForUpdate(itemId));
+            result.reject("conflict", "다른 사용자가 먼저 수정했습니다. 바뀐 내용을 확인하고 다시 수정해주세요.");
+            return "items/updateItemForm";
+        }
         return "redirect:/items";
     }
-}
\ No newline at end of file
+
+    private static void fillForm(BookForm form, ItemView item) {
+        form.setId(item.getId());
+        form.setVersion(item.getVersion());
+        form.setName(item.getName());
+        form.setPrice(item.getPrice());
+        form.setStockQuantity(item.getStockQuantity());
+        form.setAuthor(item.getAuthor());
+        form.setIsbn(item.getIsbn());
+    }
+}
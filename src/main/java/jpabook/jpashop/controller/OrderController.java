@@ -2,9 +2,11 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.domain.service.ItemService;
+import jpabook.jpashop.domain.service.ItemView;
 import jpabook.jpashop.domain.service.MemberService;
+import jpabook.jpashop.domain.service.OrderCommand;
+import jpabook.jpashop.domain.service.OrderGroupCommitter;
 import jpabook.jpashop.domain.service.OrderService;
 import jpabook.jpashop.repository.OrderSearch;
 import lombok.RequiredArgsConstructor;
@@ -20,11 +22,12 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final OrderGroupCommitter orderGroupCommitter;
 
     @GetMapping("/order")
     public String createForm(Model model) {
         List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
+        List<ItemView> items = itemService.findItems();
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
@@ -37,7 +40,7 @@ public class OrderController {
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count) {
 
-        orderService.order(memberId, itemId, count);
+        orderGroupCommitter.order(OrderCommand.of(memberId, itemId, count));
         return "redirect:/orders";
     }
 
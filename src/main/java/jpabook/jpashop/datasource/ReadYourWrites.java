@@ -0,0 +1,79 @@
+package jpabook.jpashop.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/*
+    쓰기 직후의 읽기를 primary 로 고정 (복제 지연 동안 방금 쓴 데이터가 안 보이는 문제)
+    쓰기 트랜잭션이 커밋되면 현재 스레드에 기한을 기록하고, 응답 쿠키로도 내려서
+    같은 사용자의 다음 요청(POST 후 redirect 된 GET 등)도 기한까지 primary 에서 읽는다.
+    다른 스레드가 대신 커밋하는 쓰기(주문 그룹 커밋)는 결과를 받은 요청 스레드에서 written() 을 직접 호출한다.
+    조건부 요청(ETag)으로 응답하는 조회는 readPrimary() 로 요청이 끝날 때까지 primary 에서 읽는다.
+    (ETag 는 커밋 후 올라간 버전이므로, 아직 복제되지 않은 복제본의 데이터가 새 ETag 로 캐시되지 않도록)
+ */
+public final class ReadYourWrites {
+    static final String COOKIE_NAME = "jpashop-rw";
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+    private static volatile long windowMillis; // 0 이면 끔, 복제본 라우팅이 켜질 때 설정된다
+    private static volatile boolean routing; // 복제본 라우팅이 켜져 있으면 요청마다 ReadYourWritesFilter 가 기한을 지운다
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPinned() {
+        Long until = PINNED_UNTIL.get();
+        return until != null && System.currentTimeMillis() < until;
+    }
+
+    static void enable(long windowMillis) {
+        ReadYourWrites.windowMillis = windowMillis;
+        routing = true;
+    }
+
+    static void disable() {
+        windowMillis = 0;
+        routing = false;
+    }
+
+    // 쿠키 값은 클라이언트가 바꿀 수 있으므로 지금부터 windowMillis 이후까지만 믿는다
+    static void pinUntil(long until) {
+        PINNED_UNTIL.set(Math.min(until, System.currentTimeMillis() + windowMillis));
+    }
+
+    static void clear() {
+        PINNED_UNTIL.remove();
+    }
+
+    // 이 요청의 남은 읽기를 primary 로 보낸다, 복제본 라우팅이 꺼져 있으면 아무것도 하지 않는다 (지울 필터가 없으므로)
+    public static void readPrimary() {
+        if (routing) {
+            PINNED_UNTIL.set(Long.MAX_VALUE);
+        }
+    }
+
+    // 쓰기 커밋 후 호출, 복제본 라우팅이 꺼져 있으면 아무것도 하지 않는다
+    public static void written() {
+        long windowMillis = ReadYourWrites.windowMillis;
+        if (windowMillis <= 0) {
+            return;
+        }
+        long until = System.currentTimeMillis() + windowMillis;
+        PINNED_UNTIL.set(until);
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+            if (response != null && !response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(until));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+                response.addCookie(cookie);
+            }
+        }
+    }
+}
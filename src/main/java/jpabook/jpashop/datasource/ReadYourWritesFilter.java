@@ -0,0 +1,34 @@
+package jpabook.jpashop.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// 요청의 read-your-writes 쿠키를 스레드에 옮기고, 요청이 끝나면 지운다 (스레드 풀에서 다음 요청으로 넘어가지 않도록)
+// 기한은 지금부터 read-your-writes-millis 이후로 잘라낸다. (먼 미래 값의 쿠키로 모든 읽기를 primary 로 보내지 못하게)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Cookie cookie = WebUtils.getCookie(request, ReadYourWrites.COOKIE_NAME);
+        if (cookie != null) {
+            try {
+                ReadYourWrites.pinUntil(Long.parseLong(cookie.getValue()));
+            } catch (NumberFormatException ignored) {
+                // 잘못된 쿠키는 무시
+            }
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// jpashop.datasource.*, 읽기 전용 복제본 설정
+@Getter @Setter
+@ConfigurationProperties("jpashop.datasource")
+public class ReplicaProperties {
+    private List<Replica> replicas = new ArrayList<>();
+    private Selection selection = Selection.ROUND_ROBIN;
+    private long readYourWritesMillis = 1000; // 쓰기 후 이 시간 동안은 같은 사용자의 읽기도 primary 로, 0 이면 끔
+
+    public enum Selection {
+        ROUND_ROBIN, // 차례대로
+        LEAST_BUSY   // 사용 중인 커넥션이 가장 적은 복제본
+    }
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
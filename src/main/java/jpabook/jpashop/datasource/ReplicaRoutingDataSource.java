@@ -0,0 +1,92 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jpabook.jpashop.datasource.ReplicaProperties.Selection;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    readOnly 트랜잭션은 복제본으로, 나머지(쓰기, 트랜잭션 밖)는 primary 로 보낸다.
+    트랜잭션의 readOnly 여부는 커넥션을 얻는 시점에 결정되므로 LazyConnectionDataSourceProxy 로 감싸서 사용한다.
+    (트랜잭션 시작 시점에는 아직 readOnly 동기화가 설정되지 않음)
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final long readYourWritesMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    Selection selection, long readYourWritesMillis) {
+        this.replicas = replicas;
+        this.selection = selection;
+        this.readYourWritesMillis = readYourWritesMillis;
+        ReadYourWrites.enable(readYourWritesMillis);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            onWriteCommit();
+            return PRIMARY;
+        }
+        if (ReadYourWrites.isPinned()) { // 쓰기 직후이거나 조건부 요청의 조회
+            return PRIMARY;
+        }
+        return selection == Selection.LEAST_BUSY ? leastBusy() : Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    private int leastBusy() {
+        int chosen = 0;
+        int fewest = Integer.MAX_VALUE;
+        int offset = Math.floorMod(next.getAndIncrement(), replicas.size()); // 같으면 돌아가면서
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (offset + i) % replicas.size();
+            HikariPoolMXBean pool = replicas.get(index).getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < fewest) {
+                fewest = active;
+                chosen = index;
+            }
+        }
+        return chosen;
+    }
+
+    // 쓰기 트랜잭션이 커밋되면 read-your-writes 기한을 건다
+    private void onWriteCommit() {
+        if (readYourWritesMillis <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ReadYourWrites.written();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -1,15 +1,21 @@
 package jpabook.jpashop.domain;
 
 import jpabook.jpashop.domain.item.Item;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import javax.persistence.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 @Entity
+@Table(indexes = @Index(name = "idx_category_path", columnList = "path")) // 하위 트리 조회 (path like '/1/5/%')
 @Getter @Setter
 public class Category {
-    @Id @GeneratedValue
+    public static final String ROOT_PATH = "/";
+
+    @Id @GeneratedValue(generator = "pooled_lo")
     @Column(name = "category_id")
     private Long id;
 
@@ -18,7 +24,8 @@ public class Category {
     @ManyToMany
     @JoinTable(name = "category_item", // 중간 테이블에 있는
             joinColumns = @JoinColumn(name = "category_id"), // 카테고리 아이디
-            inverseJoinColumns = @JoinColumn(name = "item_id"))
+            inverseJoinColumns = @JoinColumn(name = "item_id"),
+            indexes = @Index(name = "idx_category_item", columnList = "category_id, item_id")) // 카테고리별 상품 keyset 페이징
     private List<Item> items = new ArrayList<>();
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -27,9 +34,58 @@ public class Category {
 
     @OneToMany(mappedBy = "parent") // 셀프로 양방향 관계를 가짐
     private List<Category> child = new ArrayList<>(); // 자식, 여러개를 가질 수 있음
+
+    /*
+    조상 id 경로 (materialized path), 루트는 "/" 이고 1 -> 5 의 자식이면 "/1/5/"
+    하위 트리는 path like '{getSubtreePath()}%' 한번, 조상은 path 의 id 로 IN 한번에 조회한다.
+    addChildCategory 로만 바꾼다.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "path", nullable = false)
+    private String path = ROOT_PATH;
+
     //==연관관계 메서드==//
     public void addChildCategory(Category child) {
         this.child.add(child);
         child.setParent(this);
+        child.path = id != null ? getSubtreePath() : null; // 부모가 아직 저장 전이면 자식을 저장할 때 채운다
+    }
+
+    // 부모에서 떼어서 최상위로
+    public void moveToRoot() {
+        if (parent != null) {
+            parent.getChild().remove(this);
+        }
+        this.parent = null;
+        this.path = ROOT_PATH;
+    }
+
+    @PrePersist
+    private void fillPath() {
+        if (path == null) {
+            if (parent.getId() == null) {
+                throw new IllegalStateException("부모 카테고리를 먼저 저장해야 합니다.");
+            }
+            path = parent.getSubtreePath();
+        }
+    }
+
+    //==조회 로직==//
+    // 자식들의 path, 하위 트리의 접두어
+    public String getSubtreePath() {
+        return path + id + "/";
+    }
+
+    // 루트부터 부모까지의 id
+    public List<Long> getAncestorIds() {
+        return Arrays.stream(path.split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    // 루트가 0
+    public int getDepth() {
+        return (int) path.chars().filter(c -> c == '/').count() - 1;
     }
-}
\ No newline at end of file
+}
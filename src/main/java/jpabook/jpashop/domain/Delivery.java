@@ -1,6 +1,7 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,7 +10,7 @@ import javax.persistence.*;
 @Entity
 @Getter @Setter
 public class Delivery {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "pooled_lo")
     @Column(name = "delivery_id")
     private Long id;
 
@@ -22,4 +23,8 @@ public class Delivery {
 
     @Enumerated(EnumType.STRING)
     private DeliveryStatus status; //ENUM [READY(준비), COMP(배송)]
+
+    @Version // 낙관적 락
+    @Setter(AccessLevel.NONE)
+    private Long version;
 }
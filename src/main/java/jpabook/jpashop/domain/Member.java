@@ -10,9 +10,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name")) // 회원 이름 중복 방지 + 인덱스
 @Getter @Setter
 public class Member {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "pooled_lo")
     @Column(name = "member_id") // 테이블명_id
     private Long id;
 
@@ -14,12 +14,14 @@ import java.util.List;
 import static javax.persistence.FetchType.*;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_total_price", columnList = "total_price, order_id"), // 주문금액순 정렬
+        @Index(name = "idx_orders_order_date", columnList = "order_date")})            // 주문일 검색
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "pooled_lo")
     @Column(name = "order_id")
     private Long id;
 
@@ -39,6 +41,15 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status; //주문상태 [ORDER, CANCEL]
 
+    @Version // 낙관적 락
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    // 주문금액, 주문상품 가격 * 수량의 합. 목록에서 금액만 보려고 주문상품을 조회하지 않도록 저장해 둔다
+    @Setter(AccessLevel.NONE)
+    @Column(name = "total_price")
+    private int totalPrice;
+
     //==연관관계 메서드==//
     public void setMember(Member member) {
         this.member = member;
@@ -48,6 +59,7 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice += orderItem.getTotalPrice();
     }
 
     public void setDelivery(Delivery delivery) {
@@ -81,13 +93,26 @@ public class Order {
         for (OrderItem orderItem : orderItems) {
             orderItem.cancel();
         }
+        this.totalPrice = calculateTotalPrice(); // 주문상품을 이미 읽었으므로 다시 맞춰 둔다
+    }
+
+    /**
+     * 저장된 주문 가격을 주문상품으로 다시 계산, 바뀌었으면 true
+     */
+    public boolean refreshTotalPrice() {
+        int calculated = calculateTotalPrice();
+        if (calculated == totalPrice) {
+            return false;
+        }
+        this.totalPrice = calculated;
+        return true;
     }
 
     //==조회 로직==//
     /**
-     * 전체 주문 가격 조회
+     * 주문상품으로 주문 가격 계산, 저장된 totalPrice 는 getTotalPrice()
      */
-    public int getTotalPrice() {
+    public int calculateTotalPrice() {
         int totalPrice = 0;
         for (OrderItem orderItem : orderItems) {
             totalPrice += orderItem.getTotalPrice();
@@ -1,6 +1,8 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import jpabook.jpashop.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,8 +12,9 @@ import javax.persistence.*;
 @Entity
 @Getter @Setter
 public class OrderItem {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "time_ordered") // DB 호출 없이 생성
     @Column(name = "order_item_id")
+    @JsonSerialize(using = ToStringSerializer.class) // 2^53 을 넘는 값이라 JSON 에는 문자열로 (api/v1/orders 가 엔티티를 그대로 반환)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +39,15 @@ public class OrderItem {
         return orderItem;
     }
 
+    // 재고를 이미 차감한 경우 (ItemRepository.removeStock)
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
+    }
+
     // 비즈니스 로직
     public void cancel() {
         getItem().addStock(count); // 주문 수량만큼 원복해준다!
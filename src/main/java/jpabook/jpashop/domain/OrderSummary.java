@@ -0,0 +1,81 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+    주문 목록 조회용 요약 (읽기 모델)
+    목록 API 가 매번 orders, member, delivery, order_item, item 을 조인하지 않도록 목록에 필요한 값을 한 row 에 펼쳐 둔다.
+    주문 / 취소와 같은 트랜잭션에서 OrderService 가 함께 저장하고, 어긋났을 때는 OrderSummaryRebuilder 로 다시 만든다.
+    회원 이름 / 상품 이름이 바뀌면 MemberService / ItemService 가 같은 트랜잭션에서 해당 요약을 고친다.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_status", columnList = "status, order_id"), // 상태별 keyset 페이징
+        @Index(name = "idx_order_summary_member_name", columnList = "member_name")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+    private static final int ITEM_NAMES_LENGTH = 1000;
+
+    @Id
+    @Column(name = "order_id") // 주문과 같은 id
+    private Long orderId;
+
+    @Column(name = "member_name")
+    private String memberName;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private OrderStatus status;
+
+    @Embedded
+    private Address address;
+
+    private int totalPrice;
+    private int lineCount; // 주문상품 수
+
+    @Column(length = ITEM_NAMES_LENGTH)
+    private String itemNames; // 주문상품 이름, 쉼표로 구분
+
+    //==생성 메서드==//
+    public static OrderSummary of(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.orderId = order.getId();
+        summary.memberName = order.getMember().getName();
+        summary.orderDate = order.getOrderDate();
+        summary.status = order.getStatus();
+        summary.address = order.getDelivery().getAddress();
+        summary.totalPrice = order.getTotalPrice();
+        summary.lineCount = order.getOrderItems().size();
+
+        summary.itemNames = joinItemNames(order.getOrderItems().stream()
+                .map(orderItem -> orderItem.getItem().getName())
+                .collect(Collectors.toList()));
+        return summary;
+    }
+
+    // 주문상품 이름을 쉼표로 이어서 컬럼 길이에 맞게 자른다 (상품 이름이 바뀌었을 때 다시 만들 때도 사용)
+    public static String joinItemNames(List<String> names) {
+        String itemNames = String.join(", ", names);
+        return itemNames.length() > ITEM_NAMES_LENGTH ? itemNames.substring(0, ITEM_NAMES_LENGTH) : itemNames;
+    }
+
+    //==비즈니스 로직==//
+    public void cancel() {
+        this.status = OrderStatus.CANCEL;
+    }
+
+    public void changeTotalPrice(int totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+}
@@ -0,0 +1,36 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/*
+    조회 API 의 조건부 요청(ETag / Last-Modified)용 목록 버전, 목록(회원, 상품, 주문)마다 한 row
+    인스턴스가 여럿이어도 같은 버전을 보도록 DB 에 둔다. 값을 올리고 읽는 것은 ResourceVersions
+ */
+@Entity
+@Table(name = "resource_version")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ResourceVersion {
+    @Id
+    @Column(name = "resource", length = 20)
+    private String resource; // ResourceVersions.Resource 이름
+
+    private long version;
+    private long lastModified; // epoch millis
+
+    // 처음 만들 때 버전을 현재 시각으로 두어서 테이블을 다시 만들어도 이전 ETag 와 겹치지 않게 한다
+    public static ResourceVersion of(String resource, long now) {
+        ResourceVersion resourceVersion = new ResourceVersion();
+        resourceVersion.resource = resource;
+        resourceVersion.version = now;
+        resourceVersion.lastModified = now;
+        return resourceVersion;
+    }
+}
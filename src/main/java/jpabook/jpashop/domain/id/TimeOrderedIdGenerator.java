@@ -0,0 +1,60 @@
+package jpabook.jpashop.domain.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/*
+    시간순 64bit 식별자 생성기
+    [41bit 밀리초(EPOCH 기준)][10bit 노드 id][12bit 순번] 으로 구성되어 DB 호출 없이 만들어지고 시간순으로 증가한다.
+    같은 밀리초 안에서 순번(4096개)을 다 쓰면 다음 밀리초 값을 미리 당겨쓴다. 시계가 뒤로 가도 값은 줄어들지 않는다.
+    여러 JVM 이 같은 DB 를 쓰는 경우 jpashop.id.node-id 를 서로 다르게 지정해야 한다.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator, Configurable {
+    public static final String NODE_ID_SETTING = "jpashop.id.node-id";
+
+    private static final long EPOCH = 1672531200000L; // 2023-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private long nodeId;
+    private long lastMillis = -1L;
+    private long sequence;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService configurationService = serviceRegistry.getService(ConfigurationService.class);
+        int nodeId = configurationService.getSetting(NODE_ID_SETTING, StandardConverters.INTEGER, 0);
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new MappingException(NODE_ID_SETTING + " 는 0 ~ " + MAX_NODE_ID + " 사이여야 합니다: " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public synchronized Serializable generate(SharedSessionContractImplementor session, Object object) {
+        long now = Math.max(System.currentTimeMillis(), lastMillis);
+
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                now = lastMillis + 1; // 순번 소진, 다음 밀리초로
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+
+        return ((now - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
@@ -1,6 +1,7 @@
 package jpabook.jpashop.domain.item;
 
 import jpabook.jpashop.domain.exception.NotEnoughStockException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import jpabook.jpashop.domain.Category;
@@ -14,7 +15,7 @@ import java.util.List;
 @Getter @Setter
 public abstract class Item {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "pooled_lo")
     @Column(name = "item_id") // 테이블 명의 아이디 값을 주로 선언
     private Long id;
 
@@ -22,6 +23,10 @@ public abstract class Item {
     private int price;
     private int stockQuantity;
 
+    @Version // 낙관적 락, 동시에 수정하면 나중에 커밋하는 쪽이 실패한다 (재고 차감 벌크 update 도 올린다)
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<Category>();
 
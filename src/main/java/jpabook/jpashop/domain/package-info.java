@@ -0,0 +1,22 @@
+/*
+    식별자 생성 전략, 엔티티마다 @GeneratedValue(generator = "...") 로 골라서 사용한다.
+
+    pooled_lo    : 엔티티별 시퀀스(테이블명_seq)에서 50개씩 블록으로 받아와 JVM 안에서 나눠준다.
+                   persist 할 때마다 시퀀스를 호출하지 않으므로 insert 배치가 그대로 유지된다.
+    time_ordered : DB 를 거치지 않고 JVM 안에서 시간순 64bit 식별자를 만든다. (jpashop.id.node-id 로 노드 구분)
+                   값이 JavaScript 의 안전한 정수 범위(2^53)를 넘으므로 JSON 으로 내보낼 때는 문자열로 직렬화한다.
+                   (@JsonSerialize(using = ToStringSerializer.class), 숫자 그대로 보내면 JS 클라이언트에서 값이 바뀐다)
+ */
+@GenericGenerators({
+        @GenericGenerator(name = "pooled_lo", strategy = "enhanced-sequence", parameters = {
+                @Parameter(name = "prefer_sequence_per_entity", value = "true"),
+                @Parameter(name = "optimizer", value = "pooled-lo"),
+                @Parameter(name = "increment_size", value = "50")
+        }),
+        @GenericGenerator(name = "time_ordered", strategy = "jpabook.jpashop.domain.id.TimeOrderedIdGenerator")
+})
+package jpabook.jpashop.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.GenericGenerators;
+import org.hibernate.annotations.Parameter;
@@ -0,0 +1,29 @@
+package jpabook.jpashop.domain.service;
+
+import lombok.Getter;
+
+// 대량 주문 적재의 입력 한 줄, 읽기 / 검증에 실패한 줄은 command 없이 error 만 가진다
+@Getter
+public class BulkOrderLine {
+    private final int lineNumber;   // 요청 본문의 줄 번호 (1 부터)
+    private final OrderCommand command;
+    private final String error;
+
+    private BulkOrderLine(int lineNumber, OrderCommand command, String error) {
+        this.lineNumber = lineNumber;
+        this.command = command;
+        this.error = error;
+    }
+
+    public static BulkOrderLine of(int lineNumber, OrderCommand command) {
+        return new BulkOrderLine(lineNumber, command, null);
+    }
+
+    public static BulkOrderLine invalid(int lineNumber, String error) {
+        return new BulkOrderLine(lineNumber, null, error);
+    }
+
+    public boolean isValid() {
+        return command != null;
+    }
+}
@@ -0,0 +1,65 @@
+package jpabook.jpashop.domain.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 대량 주문 적재 결과, 청크 단위로 커밋 여부와 소요 시간을, 줄 단위로 읽지 못한 주문을 남긴다
+@Getter
+public class BulkOrderResult {
+    private static final int MAX_INVALID_LINES = 1000; // 응답에 남기는 잘못된 줄 수, 개수는 모두 센다
+
+    private int orderCount;     // 커밋된 주문 수
+    private int failedCount;    // 롤백된 청크에 속한 주문 수
+    private int invalidCount;   // 읽기 / 검증에 실패해서 처리하지 않은 줄 수
+    private long elapsedMillis;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final List<InvalidLine> invalidLines = new ArrayList<>();
+
+    void addChunk(Chunk chunk) {
+        chunks.add(chunk);
+        if (chunk.isCommitted()) {
+            orderCount += chunk.getSize();
+        } else {
+            failedCount += chunk.getSize();
+        }
+    }
+
+    void addInvalidLine(BulkOrderLine line) {
+        invalidCount++;
+        if (invalidLines.size() < MAX_INVALID_LINES) {
+            invalidLines.add(new InvalidLine(line.getLineNumber(), line.getError()));
+        }
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // 초당 커밋된 주문 수
+    public long getOrdersPerSecond() {
+        return elapsedMillis == 0 ? orderCount : orderCount * 1000L / elapsedMillis;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Chunk {
+        private int index;
+        private int firstLine;      // 청크에 속한 주문의 줄 번호 범위
+        private int lastLine;
+        private int size;
+        private boolean committed;
+        private long elapsedMillis;
+        private Integer failedLine; // 롤백된 경우 실패한 주문의 줄 번호, 커밋 중 실패면 null
+        private String error;       // 롤백된 경우 원인
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class InvalidLine {
+        private int lineNumber;
+        private String error;
+    }
+}
@@ -0,0 +1,95 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+    private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
+
+    // 카테고리 생성, parentId 가 없으면 최상위
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        categoryTree.reloadAfterCommit();
+        return category.getId();
+    }
+
+    /*
+    카테고리를 하위 트리째 다른 부모 밑으로 옮긴다. (newParentId 가 없으면 최상위로)
+    자기 path 는 addChildCategory 가 바꾸고, 자손들의 path 는 update 한번으로 앞부분만 바꾼다.
+     */
+    @Transactional
+    public void move(Long categoryId, Long newParentId) {
+        Category category = findCategory(categoryId);
+        String oldSubtreePath = category.getSubtreePath();
+
+        if (newParentId == null) {
+            category.moveToRoot();
+        } else {
+            Category newParent = findCategory(newParentId);
+            if (newParent.getId().equals(categoryId) || newParent.getPath().startsWith(oldSubtreePath)) {
+                throw new IllegalArgumentException("자기 자신이나 자손 밑으로 옮길 수 없습니다.");
+            }
+            if (category.getParent() != null) {
+                category.getParent().getChild().remove(category);
+            }
+            newParent.addChildCategory(category);
+        }
+
+        categoryRepository.replacePathPrefix(oldSubtreePath, category.getSubtreePath()); // 이전 변경을 flush 한 뒤 실행된다
+        categoryTree.reloadAfterCommit();
+    }
+
+    public List<Category> findSubtree(Long categoryId) {
+        return categoryRepository.findSubtree(categoryId, subtreePath(categoryId));
+    }
+
+    public List<Category> findAncestors(Long categoryId) {
+        List<Long> ancestorIds = findCategory(categoryId).getAncestorIds();
+        return ancestorIds.isEmpty() ? List.of() : categoryRepository.findAllById(ancestorIds);
+    }
+
+    // 카테고리와 모든 자손 카테고리의 상품, 쿼리 한번
+    public List<Item> findItemsInSubtree(Long categoryId) {
+        return categoryRepository.findItemsInSubtree(categoryId, subtreePath(categoryId));
+    }
+
+    // 카테고리 상품 한 페이지, includeSubtree 면 자손 카테고리의 상품까지
+    public List<Item> findItemsPage(Long categoryId, boolean includeSubtree, Long afterId, int limit) {
+        return categoryRepository.findItemsPage(categoryId, includeSubtree ? subtreePath(categoryId) : null, afterId, limit);
+    }
+
+    public Map<Long, Long> countItemsByCategory() {
+        return categoryRepository.countItemsByCategory();
+    }
+
+    // path 는 스냅샷에서 읽어서 카테고리 조회 쿼리를 생략한다, 스냅샷에 없으면 (방금 만든 카테고리) DB 에서
+    private String subtreePath(Long categoryId) {
+        CategoryTree.Node node = categoryTree.get().find(categoryId);
+        return node != null ? node.getSubtreePath() : findCategory(categoryId).getSubtreePath();
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("카테고리가 없습니다. id=" + categoryId);
+        }
+        return category;
+    }
+}
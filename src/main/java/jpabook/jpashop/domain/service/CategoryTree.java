@@ -0,0 +1,163 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+    카테고리 트리 메모리 스냅샷
+    전체 카테고리를 쿼리 한번으로 읽어 불변 트리를 만들고 AtomicReference 로 통째로 바꾼다.
+    읽는 쪽은 get() 으로 받은 스냅샷 하나만 보므로 트리가 바뀌는 중에도 항상 일관된 트리를 본다.
+    카테고리가 바뀌면 (CategoryService) 커밋 후에 다시 만든다.
+    여러 커밋이 동시에 다시 만들면 먼저 읽은 (오래된) 트리가 나중에 바뀔 수 있으므로,
+    읽기 전에 세대 번호를 받고 지금 스냅샷보다 새 세대일 때만 바꾼다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTree {
+    private final CategoryRepository categoryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final AtomicLong generations = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, List.of()));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startedAt = System.currentTimeMillis();
+        long generation = generations.incrementAndGet(); // 조회보다 먼저, 나중에 시작한 로딩이 더 새 데이터를 읽는다
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        List<Object[]> rows = tx.execute(status -> categoryRepository.findAllNodes());
+        List<Node> nodes = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            nodes.add(new Node((Long) row[0], (String) row[1], (Long) row[2], (String) row[3]));
+        }
+        Snapshot loaded = new Snapshot(generation, nodes);
+        Snapshot current;
+        do {
+            current = snapshot.get();
+            if (current.generation > generation) {
+                log.debug("category tree load skipped: generation {} is older than {}", generation, current.generation);
+                return;
+            }
+        } while (!snapshot.compareAndSet(current, loaded));
+        log.info("category tree loaded: {} categories in {} ms", nodes.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    public Snapshot get() {
+        return snapshot.get();
+    }
+
+    // 카테고리 변경 후 호출, 롤백되면 다시 만들지 않는다
+    public void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            load();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                load();
+            }
+        });
+    }
+
+    public static final class Snapshot {
+        private final long generation;
+        private final Map<Long, Node> nodes = new HashMap<>();
+        private final Map<Long, List<Node>> children = new HashMap<>();
+        private final List<Node> roots = new ArrayList<>();
+
+        // nodes 는 path 순, 부모가 자식보다 먼저 온다
+        private Snapshot(long generation, List<Node> sorted) {
+            this.generation = generation;
+            for (Node node : sorted) {
+                nodes.put(node.getId(), node);
+                if (node.getParentId() == null) {
+                    roots.add(node);
+                } else {
+                    children.computeIfAbsent(node.getParentId(), id -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+
+        public Node find(Long id) {
+            return nodes.get(id);
+        }
+
+        public List<Node> getRoots() {
+            return Collections.unmodifiableList(roots);
+        }
+
+        public List<Node> getChildren(Long id) {
+            return Collections.unmodifiableList(children.getOrDefault(id, List.of()));
+        }
+
+        // 루트부터 부모까지
+        public List<Node> getAncestors(Long id) {
+            List<Node> ancestors = new ArrayList<>();
+            Node node = nodes.get(id);
+            while (node != null && node.getParentId() != null) {
+                node = nodes.get(node.getParentId());
+                if (node != null) {
+                    ancestors.add(0, node);
+                }
+            }
+            return ancestors;
+        }
+
+        // 자기 자신과 모든 자손의 id
+        public List<Long> getSubtreeIds(Long id) {
+            List<Long> ids = new ArrayList<>();
+            if (!nodes.containsKey(id)) {
+                return ids;
+            }
+            ids.add(id);
+            for (int i = 0; i < ids.size(); i++) {
+                getChildren(ids.get(i)).forEach(child -> ids.add(child.getId()));
+            }
+            return ids;
+        }
+
+        public int size() {
+            return nodes.size();
+        }
+    }
+
+    @Getter
+    public static final class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final String path;
+
+        private Node(Long id, String name, Long parentId, String path) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.path = path;
+        }
+
+        public String getSubtreePath() {
+            return path + id + "/";
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package jpabook.jpashop.domain.service;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.retry.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static jpabook.jpashop.CacheConfig.ITEMS;
+import static jpabook.jpashop.CacheConfig.ITEM_LIST;
 
 // itemRepository를 단순히 위임!
 @Service
@@ -14,27 +26,74 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final ResourceVersions resourceVersions;
+    private final OrderSummaryRebuilder orderSummaryRebuilder;
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ITEMS, key = "#item.id"),
+            @CacheEvict(cacheNames = ITEM_LIST, allEntries = true)})
     public void saveItem(Item item) {
         itemRepository.save(item);
+        resourceVersions.changed(Resource.ITEMS);
     }
 
     /**
      * 영속성 컨텍스트가 자동 변경
+     * version 은 사용자가 수정 폼을 열 때 본 값이다. 그 뒤에 다른 수정이나 주문(재고 차감)이 먼저 커밋됐으면
+     * 다시 시도해서 덮어쓰지 않고 ObjectOptimisticLockingFailureException 으로 충돌을 알린다. (사용자가 최신 값을 보고 다시 수정)
+     * 조회 후 커밋 전에 바뀐 경우는 @Version 이 커밋 때 같은 예외로 막는다.
      */
     @Transactional
-    public void updateItem(Long id, String name, int price, int stockQuantity) {
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ITEMS, key = "#id"),
+            @CacheEvict(cacheNames = ITEM_LIST, allEntries = true)})
+    public void updateItem(Long id, Long version, String name, int price, int stockQuantity) {
         Item item = itemRepository.findOne(id);
+        if (!Objects.equals(item.getVersion(), version)) {
+            throw new ObjectOptimisticLockingFailureException(Item.class, id);
+        }
+        boolean renamed = !Objects.equals(item.getName(), name);
         item.setName(name);
         item.setPrice(price);
         item.setStockQuantity(stockQuantity);
+        if (renamed) {
+            orderSummaryRebuilder.refreshItemNames(id); // 주문 요약에 펼쳐 둔 상품 이름도 같은 트랜잭션으로
+        }
+        resourceVersions.changed(Resource.ITEMS, Resource.ORDERS); // 주문 목록에 상품 이름이 나온다
+    }
+
+    // 재고 입고, 읽고 더해서 쓰므로 동시에 입고 / 주문되면 version 충돌 후 다시 시도한다
+    @RetryOnConflict
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = ITEMS, key = "#itemId"),
+            @CacheEvict(cacheNames = ITEM_LIST, allEntries = true)})
+    public void addStock(Long itemId, int quantity) {
+        itemRepository.findOne(itemId).addStock(quantity);
+        resourceVersions.changed(Resource.ITEMS);
     }
-    public List<Item> findItems() {
-        return itemRepository.findAll();
+
+    /*
+    조회 결과는 캐시에 두고 여러 요청이 같이 사용한다. 엔티티가 아니라 바꿀 수 없는 ItemView 로 둔다.
+    수정은 updateItem 처럼 엔티티를 다시 조회해서 한다.
+     */
+    @Cacheable(ITEM_LIST)
+    public List<ItemView> findItems() {
+        return itemRepository.findAll().stream()
+                .map(ItemView::of)
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    }
+
+    @Cacheable(cacheNames = ITEMS, key = "#itemId", unless = "#result == null")
+    public ItemView findOne(Long itemId) {
+        Item item = itemRepository.findOne(itemId);
+        return item == null ? null : ItemView.of(item);
     }
 
-    public Item findOne(Long itemId) {
-        return itemRepository.findOne(itemId);
+    // 수정 폼용, 캐시를 거치지 않고 최신 version 을 읽는다 (캐시에 남은 이전 version 으로는 계속 충돌한다)
+    public ItemView findForUpdate(Long itemId) {
+        Item item = itemRepository.findOne(itemId);
+        return item == null ? null : ItemView.of(item);
     }
 }
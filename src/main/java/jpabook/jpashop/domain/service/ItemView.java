@@ -0,0 +1,41 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+
+/*
+    캐시에 두는 상품 조회 결과, 여러 요청이 같이 읽으므로 값을 바꿀 수 없게 만든다.
+    준영속 엔티티를 캐시하면 지연 로딩(categories)이 트랜잭션 밖에서 터지고, 누군가 setter 를 부르면 캐시가 오염된다.
+    author / isbn 은 Book 일 때만 값이 있다.
+ */
+@Getter
+public final class ItemView {
+    private final Long id;
+    private final String name;
+    private final int price;
+    private final int stockQuantity;
+    private final Long version;
+    private final String author;
+    private final String isbn;
+
+    private ItemView(Long id, String name, int price, int stockQuantity, Long version, String author, String isbn) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.version = version;
+        this.author = author;
+        this.isbn = isbn;
+    }
+
+    public static ItemView of(Item item) {
+        if (item instanceof Book) {
+            Book book = (Book) item;
+            return new ItemView(book.getId(), book.getName(), book.getPrice(), book.getStockQuantity(), book.getVersion(),
+                    book.getAuthor(), book.getIsbn());
+        }
+        return new ItemView(item.getId(), item.getName(), item.getPrice(), item.getStockQuantity(), item.getVersion(),
+                null, null);
+    }
+}
@@ -0,0 +1,121 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/*
+    회원 이름 블룸 필터
+    "없다" 고 하면 확실히 없는 이름이므로 가입시 중복 검사 쿼리를 생략할 수 있다. "있을 수도 있다" 면 DB 로 확인한다.
+    기동이 끝나면 전체 이름을 한번 읽어서 채우고, 이후에는 가입/이름 변경 때마다 추가한다. (삭제는 지원하지 않음)
+    롤백된 가입의 이름이 남아도 오탐만 늘 뿐 결과는 틀리지 않는다. 최종 보장은 회원 이름 유니크 제약이 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameFilter {
+    private final MemberRepository memberRepository;
+
+    @Value("${jpashop.member.name-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+    @Value("${jpashop.member.name-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter; // 로딩 중에 들어온 이름도 놓치지 않도록 먼저 만들어 둔다
+    private volatile boolean ready;      // 로딩이 끝나기 전에는 항상 DB 로 확인
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long startedAt = System.currentTimeMillis();
+        BloomFilter loading = new BloomFilter(expectedInsertions, falsePositiveRate);
+        filter = loading;
+
+        long[] count = {0};
+        try (Stream<String> names = memberRepository.streamAllNames()) {
+            names.forEach(name -> {
+                loading.put(name);
+                count[0]++;
+            });
+        }
+        ready = true;
+        log.info("member name filter loaded: {} names in {} ms", count[0], System.currentTimeMillis() - startedAt);
+    }
+
+    public boolean mightContain(String name) {
+        return !ready || name == null || filter.mightContain(name);
+    }
+
+    public void put(String name) {
+        BloomFilter current = filter;
+        if (current != null && name != null) {
+            current.put(name);
+        }
+    }
+
+    // 비트 배열을 AtomicLongArray 로 두어 여러 스레드가 동시에 넣고 조회할 수 있다
+    static class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(long expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            for (int i = 0; i < hashCount; i++) {
+                long index = indexOf(hash, i);
+                bits.accumulateAndGet((int) (index >>> 6), 1L << index, (word, mask) -> word | mask);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            for (int i = 0; i < hashCount; i++) {
+                long index = indexOf(hash, i);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 더블 해싱, h1 + i * h2
+        private long indexOf(long hash, int i) {
+            long h1 = hash;
+            long h2 = Long.rotateLeft(hash, 32) | 1L;
+            return Math.floorMod(h1 + i * h2, bitCount);
+        }
+
+        // FNV-1a 후 murmur3 fmix64 로 비트를 섞는다
+        private static long hash64(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
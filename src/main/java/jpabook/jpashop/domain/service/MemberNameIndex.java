@@ -0,0 +1,242 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/*
+    회원 이름 -> 회원 id 접두어 인덱스, 주문 검색에서 회원 이름으로 후보 회원 id 를 먼저 찾는다.
+    base  : 이름순으로 정렬한 배열 (String[] / long[]), 이진 탐색으로 접두어 구간을 찾는다. 읽기 전용
+    delta : 기동 후 가입/이름 변경분, base 보다 우선한다. 이름이 바뀐 회원의 예전 이름은 REMOVED 로 가린다.
+    delta 가 쌓이면 base 와 합쳐 새 배열을 만든다. 변경은 트랜잭션 커밋 후에 반영한다.
+    합치기는 회원 수만큼 배열을 복사하므로 요청 스레드(afterCommit)가 아니라 별도 스레드 하나에서 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameIndex {
+    private static final long REMOVED = -1L;
+    private static final Snapshot EMPTY = new Snapshot(new String[0], new long[0]);
+
+    private final MemberRepository memberRepository;
+
+    @Value("${jpashop.member.name-index.compact-threshold:10000}")
+    private int compactThreshold;
+
+    private final ConcurrentSkipListMap<String, Long> delta = new ConcurrentSkipListMap<>();
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile Snapshot base = EMPTY;
+    private volatile boolean ready; // 로딩이 끝나기 전에는 DB 로 검색
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-name-index-compact");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void stop() {
+        compactor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long startedAt = System.currentTimeMillis();
+        List<String> names = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Object[]> rows = memberRepository.streamAllIdAndNames()) {
+            rows.forEach(row -> {
+                ids.add((Long) row[0]);
+                names.add((String) row[1]);
+            });
+        }
+
+        // DB 의 정렬(collation)과 String.compareTo 가 다를 수 있으므로 자바에서 정렬한다
+        Integer[] order = new Integer[names.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(names::get));
+
+        String[] sortedNames = new String[order.length];
+        long[] sortedIds = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedNames[i] = names.get(order[i]);
+            sortedIds[i] = ids.get(order[i]);
+        }
+        base = new Snapshot(sortedNames, sortedIds);
+        ready = true;
+        log.info("member name index loaded: {} names in {} ms", order.length, System.currentTimeMillis() - startedAt);
+    }
+
+    /*
+    이름이 prefix 로 시작하는 회원 id 목록
+    인덱스가 아직 준비되지 않았거나 후보가 max 건을 넘으면 null, 호출하는 쪽에서 DB 로 검색한다.
+     */
+    public List<Long> findIdsByPrefix(String prefix, int max) {
+        if (!ready) {
+            return null;
+        }
+        Snapshot snapshot = base;
+        List<Long> ids = new ArrayList<>();
+
+        for (int i = snapshot.lowerBound(prefix); i < snapshot.names.length && snapshot.names[i].startsWith(prefix); i++) {
+            if (delta.containsKey(snapshot.names[i])) {
+                continue; // 바뀐 이름은 delta 쪽을 본다
+            }
+            ids.add(snapshot.ids[i]);
+            if (ids.size() > max) {
+                return null;
+            }
+        }
+        for (Map.Entry<String, Long> entry : delta.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (entry.getValue() != REMOVED) {
+                ids.add(entry.getValue());
+                if (ids.size() > max) {
+                    return null;
+                }
+            }
+        }
+        return ids;
+    }
+
+    // 가입
+    public void put(Long memberId, String name) {
+        afterCommit(() -> {
+            delta.put(name, memberId);
+            changed();
+        });
+    }
+
+    // 이름 변경
+    public void rename(Long memberId, String oldName, String newName) {
+        afterCommit(() -> {
+            delta.put(oldName, REMOVED);
+            delta.put(newName, memberId);
+            changed();
+        });
+    }
+
+    // 합치는 동안 들어온 변경은 delta 에 쌓이고, 다시 임계치를 넘으면 다음 합치기가 예약된다
+    private void changed() {
+        if (pendingChanges.incrementAndGet() >= compactThreshold && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compact();
+                    } catch (RuntimeException e) {
+                        log.warn("member name index compaction failed", e);
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                compacting.set(false); // 종료 중
+            }
+        }
+    }
+
+    /*
+    delta 를 base 에 합친 새 배열을 만든다. 읽는 쪽은 그동안 이전 base + delta 를 계속 본다.
+    새 base 를 반영한 뒤에 합친 값 그대로인 delta 항목만 지운다. (그 사이 다시 바뀐 이름은 delta 에 남는다)
+     */
+    private void compact() {
+        if (!ready) {
+            return; // 로딩 중에는 합치지 않는다, 로딩 후 다음 변경때 합친다
+        }
+        long startedAt = System.currentTimeMillis();
+        Snapshot snapshot = base;
+        Map<String, Long> merging = new ConcurrentSkipListMap<>(delta);
+        pendingChanges.set(0);
+
+        String[] names = new String[snapshot.names.length + merging.size()];
+        long[] ids = new long[names.length];
+        int size = 0;
+        int i = 0;
+        for (Map.Entry<String, Long> entry : merging.entrySet()) {
+            String name = entry.getKey();
+            while (i < snapshot.names.length && snapshot.names[i].compareTo(name) < 0) {
+                names[size] = snapshot.names[i];
+                ids[size++] = snapshot.ids[i++];
+            }
+            if (i < snapshot.names.length && snapshot.names[i].equals(name)) {
+                i++; // delta 가 덮어쓴다
+            }
+            if (entry.getValue() != REMOVED) {
+                names[size] = name;
+                ids[size++] = entry.getValue();
+            }
+        }
+        while (i < snapshot.names.length) {
+            names[size] = snapshot.names[i];
+            ids[size++] = snapshot.ids[i++];
+        }
+
+        base = new Snapshot(Arrays.copyOf(names, size), Arrays.copyOf(ids, size));
+        merging.forEach(delta::remove);
+        log.info("member name index compacted: {} changes, {} names in {} ms",
+                merging.size(), size, System.currentTimeMillis() - startedAt);
+    }
+
+    // 롤백된 변경이 인덱스에 남지 않도록 커밋 후에 반영한다
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Snapshot {
+        private final String[] names;
+        private final long[] ids;
+
+        private Snapshot(String[] names, long[] ids) {
+            this.names = names;
+            this.ids = ids;
+        }
+
+        // prefix 이상인 첫 위치
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = names.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (names[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
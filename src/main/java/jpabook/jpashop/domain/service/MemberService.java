@@ -1,9 +1,13 @@
 package jpabook.jpashop.domain.service;
 
+import io.micrometer.core.annotation.Timed;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,25 +18,59 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MemberService {
     private final MemberRepository memberRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final MemberNameIndex memberNameIndex;
+    private final ResourceVersions resourceVersions;
 
     // 회원 가입
+    @Timed("jpashop.member")
     @Transactional // 기본 옵션은 readOnly = false, 쓰기에 주로 지정
     public Long join(Member member) {
         // 중복 회원 검증
-        validateDuplicateMember(member);
+        validateName(member.getName());
+        validateDuplicateMember(member.getName());
 
         memberRepository.save(member);
+        flushName();
+        memberNameFilter.put(member.getName());
+        memberNameIndex.put(member.getId(), member.getName());
+        resourceVersions.changed(Resource.MEMBERS);
         return member.getId();
     }
 
-    private void validateDuplicateMember(Member member) {
+    // 블룸 필터 / 이름 인덱스는 null 이름을 다루지 않는다
+    private void validateName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("회원 이름은 필수입니다.");
+        }
+    }
+
+    /*
+    블룸 필터가 없다고 하면 새로운 이름이므로 쿼리 없이 통과 (대부분의 가입)
+    있을 수도 있다고 하면 엔티티를 조회하지 않고 이름 인덱스로 존재 여부만 확인한다.
+    필터는 JVM 마다 따로 있고 확인과 저장 사이가 원자적이지 않으므로, 동시 가입이나 다른 인스턴스에서 가입한 이름은
+    여기를 통과할 수 있다. 그 경우는 회원 이름 유니크 제약이 막는다. (flushName)
+     */
+    private void validateDuplicateMember(String name) {
+        if (!memberNameFilter.mightContain(name)) {
+            return;
+        }
         // Exception
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if(!findMembers.isEmpty()) {
+        if (memberRepository.existsByName(name)) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    // 바로 flush 해서 이름 유니크 제약 위반을 중복 회원 예외로 바꾼다 (커밋 시점까지 미루면 DataIntegrityViolationException 그대로 나간다)
+    private void flushName() {
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+    }
+
     // 회원 전체 조회
     public List<Member> findMembers() {
         return memberRepository.findAll();
@@ -44,7 +82,21 @@ public class MemberService {
 
     @Transactional
     public void update(Long id, String name) {
+        validateName(name);
         Member member = memberRepository.findOne(id);
+        if (member == null) {
+            throw new IllegalArgumentException("회원이 없습니다. id=" + id);
+        }
+        String oldName = member.getName();
+        if (name.equals(oldName)) {
+            return;
+        }
+        validateDuplicateMember(name);
         member.setName(name);
+        flushName();
+        orderSummaryRepository.updateMemberName(id, name); // 주문 요약에 펼쳐 둔 회원 이름도 같은 트랜잭션으로
+        memberNameFilter.put(name);
+        memberNameIndex.rename(id, oldName, name);
+        resourceVersions.changed(Resource.MEMBERS, Resource.ORDERS); // 주문 목록에 회원 이름이 나온다
     }
 }
@@ -0,0 +1,90 @@
+package jpabook.jpashop.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    대량 주문 적재
+    주문마다 트랜잭션을 커밋하지 않고 chunk-size 건씩 한 트랜잭션으로 묶어서 커밋한다.
+    청크 안의 주문, 주문상품, 배송 insert 는 hibernate.jdbc.batch_size 단위로 묶여서 커밋 시점에 나간다.
+    청크마다 새 트랜잭션이므로 영속성 컨텍스트도 청크가 끝나면 비워진다.
+    한 청크가 실패하면 그 청크만 롤백하고 다음 청크를 계속 처리한다. 결과에 실패한 주문의 줄 번호를 남긴다.
+    읽기 / 검증에 실패한 줄은 청크에 넣지 않고 줄 단위 실패로 남긴 뒤 계속 처리한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBulkService {
+    private final OrderService orderService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${jpashop.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    public BulkOrderResult order(Iterator<BulkOrderLine> lines) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        BulkOrderResult result = new BulkOrderResult();
+        long startedAt = System.nanoTime();
+
+        int index = 0;
+        while (lines.hasNext()) {
+            List<BulkOrderLine> chunk = nextChunk(lines, result);
+            if (chunk.isEmpty()) {
+                continue; // 남은 줄이 모두 잘못된 줄
+            }
+            long chunkStartedAt = System.nanoTime();
+
+            int[] current = {0}; // 처리 중인 주문, 실패하면 이 주문이 원인
+            String error = null;
+            Integer failedLine = null;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (; current[0] < chunk.size(); current[0]++) {
+                        OrderCommand command = chunk.get(current[0]).getCommand();
+                        orderService.order(command.getMemberId(), command.getItemCounts());
+                    }
+                });
+            } catch (RuntimeException e) {
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                failedLine = current[0] < chunk.size() ? chunk.get(current[0]).getLineNumber() : null;
+            }
+
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStartedAt);
+            int firstLine = chunk.get(0).getLineNumber();
+            int lastLine = chunk.get(chunk.size() - 1).getLineNumber();
+            result.addChunk(new BulkOrderResult.Chunk(index, firstLine, lastLine, chunk.size(), error == null, elapsedMillis, failedLine, error));
+            if (error == null) {
+                log.info("bulk order chunk {} committed: {} orders in {} ms", index, chunk.size(), elapsedMillis);
+            } else {
+                log.warn("bulk order chunk {} rolled back: {} orders, line {}: {}", index, chunk.size(), failedLine, error);
+            }
+            index++;
+        }
+
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return result;
+    }
+
+    // 올바른 줄을 chunk-size 건까지 모은다, 잘못된 줄은 결과에 바로 남긴다
+    private List<BulkOrderLine> nextChunk(Iterator<BulkOrderLine> lines, BulkOrderResult result) {
+        List<BulkOrderLine> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && lines.hasNext()) {
+            BulkOrderLine line = lines.next();
+            if (line.isValid()) {
+                chunk.add(line);
+            } else {
+                result.addInvalidLine(line);
+            }
+        }
+        return chunk;
+    }
+}
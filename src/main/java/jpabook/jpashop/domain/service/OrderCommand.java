@@ -0,0 +1,22 @@
+package jpabook.jpashop.domain.service;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+// 주문 한 건의 요청 값, 상품 id -> 주문 수량
+@Getter
+public class OrderCommand {
+    private final Long memberId;
+    private final Map<Long, Integer> itemCounts;
+
+    public OrderCommand(Long memberId, Map<Long, Integer> itemCounts) {
+        this.memberId = memberId;
+        this.itemCounts = itemCounts;
+    }
+
+    public static OrderCommand of(Long memberId, Long itemId, int count) {
+        return new OrderCommand(memberId, Collections.singletonMap(itemId, count));
+    }
+}
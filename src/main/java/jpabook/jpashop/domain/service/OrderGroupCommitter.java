@@ -0,0 +1,203 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.datasource.ReadYourWrites;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+    주문 그룹 커밋
+    주문마다 트랜잭션을 커밋하면 피크 때 처리량이 커밋 지연시간에 묶인다.
+    요청은 제한된 큐에 넣고, writer 스레드가 최대 max-batch-size 건 또는 max-wait-millis 동안 모인 주문을 한 트랜잭션으로 커밋한다.
+    호출한 쪽은 자기 주문의 결과(주문 id 또는 NotEnoughStockException 같은 예외)만 future 로 받는다.
+
+    - 한 주문의 실패(재고 부족 등)는 OrderService.orderEach 가 그 주문만 실패로 남기므로 같은 배치의 다른 주문에 영향이 없다.
+    - orderEach 는 배치의 모든 주문상품을 item_id 순으로 차감하므로 writer 끼리 재고 row 락을 잡는 순서가 같다.
+    - 배치 커밋 자체가 실패하면 (커넥션 오류 등) 배치의 주문을 한 건씩 각자 트랜잭션으로 다시 처리한다.
+    - 큐가 가득 차면 기다리지 않고 바로 실패시킨다.
+    jpashop.order.group-commit.enabled=false (기본값) 이면 호출한 스레드에서 바로 OrderService.order 를 실행한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderGroupCommitter {
+    private final OrderService orderService;
+
+    @Value("${jpashop.order.group-commit.enabled:false}")
+    private boolean enabled;
+    @Value("${jpashop.order.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${jpashop.order.group-commit.writers:2}")
+    private int writers;
+    @Value("${jpashop.order.group-commit.max-batch-size:50}")
+    private int maxBatchSize;
+    @Value("${jpashop.order.group-commit.max-wait-millis:5}")
+    private long maxWaitMillis;
+
+    private BlockingQueue<PendingOrder> queue;
+    private ExecutorService writerPool;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writerPool = Executors.newFixedThreadPool(writers, runnable -> {
+            Thread thread = new Thread(runnable, "order-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < writers; i++) {
+            writerPool.execute(this::drain);
+        }
+        log.info("order group commit started: writers={}, max-batch-size={}, max-wait-millis={}", writers, maxBatchSize, maxWaitMillis);
+    }
+
+    // 큐에 남은 주문까지 처리하고 멈춘다
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writerPool.shutdown();
+        writerPool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public CompletableFuture<Long> submit(OrderCommand command) {
+        if (!enabled) {
+            try {
+                return CompletableFuture.completedFuture(orderDirectly(command));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        PendingOrder pending = new PendingOrder(command);
+        if (!running || !queue.offer(pending)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("주문이 밀려 있습니다. 잠시 후 다시 시도해주세요."));
+        }
+        return pending.future;
+    }
+
+    /*
+    주문이 커밋될 때까지 기다린다. 주문 실패는 원래 예외 그대로 던진다
+    그룹 커밋은 writer 스레드에서 커밋되므로, 호출한 (요청) 스레드에서 read-your-writes 기한을 건다.
+     */
+    public Long order(OrderCommand command) {
+        try {
+            Long orderId = submit(command).get();
+            if (enabled) {
+                ReadYourWrites.written();
+            }
+            return orderId;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문 대기 중 인터럽트", e);
+        }
+    }
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 첫 주문부터 max-wait-millis 동안 max-batch-size 건까지 모은다
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.future.completeExceptionally(new IllegalStateException("주문 처리 중단", e)));
+                return;
+            } catch (RuntimeException e) {
+                log.error("order group commit writer error", e);
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        List<OrderResult> results;
+        try {
+            results = orderService.orderEach(batch.stream().map(pending -> pending.command).collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            log.warn("order group commit failed, retrying {} orders one by one: {}", batch.size(), e.toString());
+            batch.forEach(this::orderAlone);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            OrderResult result = results.get(i);
+            if (result.isSuccess()) {
+                batch.get(i).future.complete(result.getOrderId());
+            } else {
+                batch.get(i).future.completeExceptionally(result.getError());
+            }
+        }
+    }
+
+    private void orderAlone(PendingOrder pending) {
+        try {
+            pending.future.complete(orderDirectly(pending.command));
+        } catch (RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    // 주문 한 건을 자기 트랜잭션으로
+    private Long orderDirectly(OrderCommand command) {
+        Map<Long, Integer> itemCounts = command.getItemCounts();
+        if (itemCounts.size() == 1) {
+            Map.Entry<Long, Integer> line = itemCounts.entrySet().iterator().next();
+            return orderService.order(command.getMemberId(), line.getKey(), line.getValue());
+        }
+        return orderService.order(command.getMemberId(), itemCounts);
+    }
+
+    private static class PendingOrder {
+        private final OrderCommand command;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private PendingOrder(OrderCommand command) {
+            this.command = command;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.domain.service;
+
+import lombok.Getter;
+
+// 주문 한 건의 처리 결과, 성공이면 orderId, 실패면 error
+@Getter
+public class OrderResult {
+    private final Long orderId;
+    private final RuntimeException error;
+
+    private OrderResult(Long orderId, RuntimeException error) {
+        this.orderId = orderId;
+        this.error = error;
+    }
+
+    public static OrderResult success(Long orderId) {
+        return new OrderResult(orderId, null);
+    }
+
+    public static OrderResult failure(RuntimeException error) {
+        return new OrderResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -1,52 +1,225 @@
 package jpabook.jpashop.domain.service;
 
+import io.micrometer.core.annotation.Timed;
 import jpabook.jpashop.domain.Delivery;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.exception.NotEnoughStockException;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.retry.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static jpabook.jpashop.CacheConfig.ITEMS;
+import static jpabook.jpashop.CacheConfig.ITEM_LIST;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderService {
+    private static final int MAX_MEMBER_CANDIDATES = 1000; // 넘으면 IN 대신 이름 like 로 검색
+
     private final OrderRepository orderRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final CacheManager cacheManager;
+    private final MemberNameIndex memberNameIndex;
+    private final ResourceVersions resourceVersions;
     // 주문
+    @Timed("jpashop.order")
+    @RetryOnConflict
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
+        return placeOrder(memberId, itemId, count);
+    }
+
+    /*
+    장바구니 주문, 여러 상품을 한 주문으로 저장한다. (itemCounts: 상품 id -> 주문 수량)
+    재고는 item_id 순서로 차감한다. 동시에 들어온 장바구니들이 항상 같은 순서로 row 락을 잡으므로 서로 데드락이 걸리지 않는다.
+    차감이 끝난 상품은 IN 쿼리 한번으로 조회하고, 주문상품은 cascade 로 함께 저장된다. (hibernate.jdbc.batch_size 로 배치 insert)
+     */
+    @Timed("jpashop.order")
+    @RetryOnConflict
+    @Transactional
+    public Long order(Long memberId, Map<Long, Integer> itemCounts) {
+        return placeOrder(memberId, itemCounts);
+    }
+
+    /*
+    여러 주문을 한 트랜잭션으로 저장한다. (그룹 커밋, OrderGroupCommitter)
+    주문 하나가 실패해도 나머지 주문은 계속 진행하고, 실패한 주문은 실패 결과로 남긴다.
+    JpaTransactionManager 는 savepoint 를 지원하지 않으므로 savepoint 없이 처리한다.
+    - 회원 / 상품 확인과 재고 차감 실패는 DB 오류가 아니라 조건부 UPDATE 결과로 판단하므로 트랜잭션이 깨지지 않는다.
+    - 재고는 배치의 모든 주문상품을 item_id 순서로 차감한다. 동시에 커밋하는 배치끼리 같은 순서로 row 락을 잡으므로 데드락이 없다.
+    - 여러 상품 중 일부만 차감하고 실패한 주문은 이미 차감한 재고를 되돌린다. (이미 락을 잡은 row 라 새로 기다리지 않는다)
+    - 그 밖의 예외(DB 오류 등)는 그대로 던져서 배치 전체를 롤백한다. 호출한 쪽이 한 건씩 다시 처리한다.
+    결과는 커밋이 끝난 뒤에 돌려받으므로 성공한 주문 id 는 모두 커밋된 주문이다.
+     */
+    @Timed("jpashop.order")
+    @Transactional
+    public List<OrderResult> orderEach(List<OrderCommand> commands) {
+        RuntimeException[] errors = new RuntimeException[commands.size()];
+
+        // 회원 확인, IN 쿼리 한번
+        Map<Long, Member> members = memberRepository.findAllById(commands.stream()
+                        .map(OrderCommand::getMemberId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+
+        List<StockLine> lines = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            OrderCommand command = commands.get(i);
+            if (command.getItemCounts().isEmpty()) {
+                errors[i] = new IllegalArgumentException("주문할 상품이 없습니다.");
+            } else if (!members.containsKey(command.getMemberId())) {
+                errors[i] = new IllegalArgumentException("회원이 없습니다. id=" + command.getMemberId());
+            } else {
+                int index = i;
+                command.getItemCounts().forEach((itemId, count) -> lines.add(new StockLine(index, itemId, count)));
+            }
+        }
+
+        // 재고 차감, 배치 전체를 item_id 순서로
+        lines.sort(StockLine.LOCK_ORDER);
+        List<StockLine> removed = new ArrayList<>();
+        for (StockLine line : lines) {
+            if (errors[line.command] != null) {
+                continue;
+            }
+            try {
+                itemRepository.removeStock(line.itemId, line.count);
+                removed.add(line);
+            } catch (NotEnoughStockException | IllegalArgumentException e) {
+                errors[line.command] = e;
+            }
+        }
+        Set<Long> itemIds = new TreeSet<>();
+        for (StockLine line : removed) {
+            if (errors[line.command] != null) {
+                itemRepository.addStock(line.itemId, line.count);
+            } else {
+                itemIds.add(line.itemId);
+            }
+        }
+        if (!removed.isEmpty()) {
+            evictItemCache(removed.stream().map(line -> line.itemId).collect(Collectors.toSet()));
+        }
+
+        // 상품 조회, IN 쿼리 한번
+        Map<Long, Item> items = itemIds.isEmpty() ? Map.of() : itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<OrderResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            if (errors[i] != null) {
+                results.add(OrderResult.failure(errors[i]));
+                continue;
+            }
+            OrderCommand command = commands.get(i);
+            results.add(OrderResult.success(saveOrder(members.get(command.getMemberId()), new TreeMap<>(command.getItemCounts()), items)));
+        }
+        return results;
+    }
+
+    private Long placeOrder(Long memberId, Long itemId, int count) {
         // 엔티티 조회
         Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
+
+        // 재고 차감, 조건부 UPDATE 로 원자적으로 처리
+        Item item = itemRepository.removeStock(itemId, count);
+        evictItemCache(List.of(itemId));
 
         // 배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
         // 주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
 
         // 주문생성
         Order order = Order.createOrder(member, delivery, orderItem);
 
-        //주문 저장
+        //주문 저장, 목록 조회용 요약도 같은 트랜잭션으로
         orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(order));
+        resourceVersions.changed(Resource.ORDERS, Resource.ITEMS); // 재고도 바뀐다
 
         // 식별자값을 반환
         return order.getId();
     }
 
-    // 취소
+    private Long placeOrder(Long memberId, Map<Long, Integer> itemCounts) {
+        if (itemCounts.isEmpty()) {
+            throw new IllegalArgumentException("주문할 상품이 없습니다.");
+        }
+
+        // 엔티티 조회
+        Member member = memberRepository.findOne(memberId);
+
+        // 재고 차감, item_id 순서로
+        SortedMap<Long, Integer> sortedCounts = new TreeMap<>(itemCounts);
+        sortedCounts.forEach((itemId, count) -> itemRepository.removeStock(itemId, count));
+        evictItemCache(sortedCounts.keySet());
+
+        // 상품 조회, IN 쿼리 한번
+        Map<Long, Item> items = itemRepository.findAllById(sortedCounts.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        return saveOrder(member, sortedCounts, items);
+    }
+
+    // 재고 차감이 끝난 주문을 저장한다. items 에는 sortedCounts 의 상품이 모두 있어야 한다
+    private Long saveOrder(Member member, SortedMap<Long, Integer> sortedCounts, Map<Long, Item> items) {
+        // 배송정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        // 주문상품 생성
+        OrderItem[] orderItems = sortedCounts.entrySet().stream()
+                .map(entry -> {
+                    Item item = items.get(entry.getKey());
+                    return OrderItem.createReservedOrderItem(item, item.getPrice(), entry.getValue());
+                })
+                .toArray(OrderItem[]::new);
+
+        // 주문생성
+        Order order = Order.createOrder(member, delivery, orderItems);
+
+        //주문 저장, 목록 조회용 요약도 같은 트랜잭션으로
+        orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(order));
+        resourceVersions.changed(Resource.ORDERS, Resource.ITEMS); // 재고도 바뀐다
+
+        return order.getId();
+    }
+
+    // 취소, 주문과 동시에 재고가 바뀌면 (removeStock 이 version 을 올린다) 다시 조회해서 다시 시도
+    @Timed("jpashop.order")
+    @RetryOnConflict
     @Transactional
     public void cancelOrder(Long orderId) {
         // 주문 엔티티 조회
@@ -54,10 +227,58 @@ public class OrderService {
 
         // 주문 취소
         order.cancel();
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        if (summary != null) {
+            summary.cancel();
+        } else {
+            orderSummaryRepository.save(OrderSummary.of(order)); // 요약이 없던 주문
+        }
+        evictItemCache(order.getOrderItems().stream()
+                .map(orderItem -> orderItem.getItem().getId())
+                .collect(Collectors.toList()));
+        resourceVersions.changed(Resource.ORDERS, Resource.ITEMS);
     }
 
-    // 검색
-     public List<Order> findOrders(OrderSearch orderSearch) {
-        return orderRepository.findAllByString(orderSearch);
-     }
+    // 재고가 바뀐 상품은 카탈로그 캐시에서 제거, 커밋 후에 반영된다
+    private void evictItemCache(Collection<Long> itemIds) {
+        itemIds.forEach(cacheManager.getCache(ITEMS)::evict);
+        cacheManager.getCache(ITEM_LIST).clear();
+    }
+
+    /*
+    검색
+    회원 이름은 접두어로 검색한다. 메모리 인덱스에서 후보 회원 id 를 찾고 o.member.id in (...) 으로 조회.
+    인덱스가 준비 전이거나 후보가 너무 많으면 'name%' like 로 DB 에서 검색한다.
+    후보가 없을 때도 DB 에서 검색한다. 인덱스는 이 JVM 의 MemberService 를 거친 가입 / 이름 변경만 알기 때문에
+    (다른 인스턴스나 직접 넣은 회원) 없다는 답은 믿을 수 없다.
+     */
+    @Timed("jpashop.order")
+    public List<Order> findOrders(OrderSearch orderSearch) {
+        String memberName = orderSearch.getMemberName();
+        if (!StringUtils.hasText(memberName)) {
+            return orderRepository.findAllByPrecompiled(orderSearch);
+        }
+
+        List<Long> memberIds = memberNameIndex.findIdsByPrefix(memberName, MAX_MEMBER_CANDIDATES);
+        if (memberIds == null || memberIds.isEmpty()) {
+            return orderRepository.findAllByPrecompiled(orderSearch);
+        }
+        return orderRepository.findAllByPrecompiled(orderSearch, memberIds);
+    }
+
+    // 배치의 주문상품 한 줄, command 는 orderEach 에 들어온 주문의 순번
+    private static final class StockLine {
+        private static final Comparator<StockLine> LOCK_ORDER =
+                Comparator.<StockLine, Long>comparing(line -> line.itemId).thenComparingInt(line -> line.command);
+
+        private final int command;
+        private final Long itemId;
+        private final int count;
+
+        private StockLine(int command, Long itemId, int count) {
+            this.command = command;
+            this.itemId = itemId;
+            this.count = count;
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+    주문 요약(order_summary) 다시 만들기
+    요약 테이블을 처음 도입하거나, OrderService 를 거치지 않고 주문이 들어온 경우(DataGenerator 등) 채워 넣는다.
+    주문을 order_id 순으로 chunk-size 건씩 keyset 으로 읽고, 청크마다 기존 요약을 지우고 새로 저장한다. (청크마다 트랜잭션)
+    주문상품 / 상품은 default_batch_fetch_size 로 IN 조회한다.
+    jpashop.order-summary.rebuild-on-startup=true 이면 기동 후 (ApplicationRunner 보다 뒤) 실행한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryRebuilder {
+    private final OrderRepository orderRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ResourceVersions resourceVersions;
+
+    @Value("${jpashop.order-summary.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+    @Value("${jpashop.order-summary.chunk-size:500}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    // 다시 만든 요약 수를 반환한다
+    public long rebuild() {
+        long startedAt = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        long rebuilt = 0;
+        Long afterId = null;
+        while (true) {
+            Long from = afterId;
+            List<Long> orderIds = tx.execute(status -> rebuildChunk(from));
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            rebuilt += orderIds.size();
+            afterId = orderIds.get(orderIds.size() - 1);
+        }
+        log.info("order summary rebuilt: {} orders in {} ms", rebuilt, System.currentTimeMillis() - startedAt);
+        return rebuilt;
+    }
+
+    /*
+    상품 이름이 바뀌면 그 상품을 포함한 주문 요약의 item_names 를 다시 만든다. 호출한 트랜잭션 안에서 실행한다.
+    주문을 다시 읽지 않고, chunk-size 건씩 주문상품 이름만 조회해서 요약 한 건씩 update 한다.
+    (조회 전에 바뀐 상품 이름이 flush 되므로 새 이름으로 만들어진다)
+     */
+    public void refreshItemNames(Long itemId) {
+        Long afterId = null;
+        while (true) {
+            List<Long> orderIds = orderSummaryRepository.findOrderIdsByItem(itemId, afterId, chunkSize);
+            if (orderIds.isEmpty()) {
+                return;
+            }
+            Map<Long, List<String>> names = new LinkedHashMap<>();
+            for (Object[] row : orderSummaryRepository.findItemNames(orderIds)) {
+                names.computeIfAbsent((Long) row[0], orderId -> new ArrayList<>()).add((String) row[1]);
+            }
+            names.forEach((orderId, itemNames) -> orderSummaryRepository.updateItemNames(orderId, OrderSummary.joinItemNames(itemNames)));
+            afterId = orderIds.get(orderIds.size() - 1);
+        }
+    }
+
+    private List<Long> rebuildChunk(Long afterId) {
+        List<Order> orders = orderRepository.findAllWithMemberDeliveryAfter(afterId, chunkSize);
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+
+        orderSummaryRepository.deleteAllById(orderIds);
+        orders.forEach(order -> orderSummaryRepository.save(OrderSummary.of(order)));
+        resourceVersions.changed(Resource.ORDERS);
+        return orderIds;
+    }
+}
@@ -0,0 +1,96 @@
+package jpabook.jpashop.domain.service;
+
+import io.micrometer.core.instrument.Metrics;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/*
+    저장된 주문금액(orders.total_price) 검증
+    주문상품을 직접 고치거나 SQL 로 데이터를 옮기면 저장된 금액이 주문상품 합계와 어긋날 수 있다.
+    주문을 order_id 순으로 chunk-size 건씩 나눠 주문상품 합계와 비교하고, repair=true 면 주문과 요약(order_summary)의 금액을 고친다.
+    어긋난 주문 수는 jpashop.order.total.drift 카운터로 남긴다.
+    jpashop.order-total.verify-cron 으로 주기 실행, 기본값 "-" 는 끔
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderTotalVerifier {
+    private final OrderRepository orderRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ResourceVersions resourceVersions;
+
+    @Value("${jpashop.order-total.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${jpashop.order-total.repair:true}")
+    private boolean repair;
+
+    @Scheduled(cron = "${jpashop.order-total.verify-cron:-}")
+    public void scheduledVerify() {
+        verify();
+    }
+
+    // 어긋난 주문 수를 반환한다
+    public long verify() {
+        long startedAt = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        long checked = 0;
+        long[] drifted = {0};
+        Long afterId = null;
+        while (true) {
+            Long from = afterId;
+            List<Long> orderIds = tx.execute(status -> {
+                List<Long> ids = orderRepository.findIdsAfter(from, chunkSize);
+                if (!ids.isEmpty()) {
+                    drifted[0] += verifyChunk(ids.get(0), ids.get(ids.size() - 1));
+                }
+                return ids;
+            });
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            checked += orderIds.size();
+            afterId = orderIds.get(orderIds.size() - 1);
+        }
+
+        Metrics.counter("jpashop.order.total.drift").increment(drifted[0]);
+        log.info("order total verified: {} orders, {} drifted{} in {} ms",
+                checked, drifted[0], repair ? " (repaired)" : "", System.currentTimeMillis() - startedAt);
+        return drifted[0];
+    }
+
+    private int verifyChunk(Long fromId, Long toId) {
+        List<Object[]> drifts = orderRepository.findTotalPriceDrift(fromId, toId);
+        for (Object[] drift : drifts) {
+            Long orderId = (Long) drift[0];
+            log.warn("order total drift: orderId={}, stored={}, calculated={}", orderId, drift[1], drift[2]);
+            if (!repair) {
+                continue;
+            }
+
+            Order order = orderRepository.findOne(orderId);
+            order.refreshTotalPrice();
+            OrderSummary summary = orderSummaryRepository.findOne(orderId);
+            if (summary != null) {
+                summary.changeTotalPrice(order.getTotalPrice());
+            }
+        }
+        if (repair && !drifts.isEmpty()) {
+            resourceVersions.changed(Resource.ORDERS);
+        }
+        return drifts.size();
+    }
+}
@@ -0,0 +1,133 @@
+package jpabook.jpashop.domain.service;
+
+import jpabook.jpashop.domain.ResourceVersion;
+import jpabook.jpashop.repository.ResourceVersionRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+    조회 API 의 조건부 요청(ETag / Last-Modified)용 버전
+    목록(회원, 상품, 주문)마다 resource_version 에 버전 번호와 마지막 변경 시각을 두고, 서비스의 쓰기가 같은 트랜잭션에서 올린다.
+    인스턴스가 여럿이어도 한 row 를 같이 보므로 다른 인스턴스의 쓰기도 ETag 에 반영된다.
+    조회하는 쪽은 쿼리 전에 PK 조회 한번으로 버전을 읽어 ETag 로 쓴다. (트랜잭션 밖이라 primary 에서 읽는다)
+    (버전과 조회 사이에 커밋되면 새 데이터에 이전 ETag 가 붙지만, 다음 요청에서 ETag 가 달라 다시 조회한다)
+    복제본은 커밋보다 늦게 반영되므로 ETag 를 내리는 조회는 primary 에서 읽는다. (ReadYourWrites.readPrimary)
+
+    버전 row 는 커밋 직전(beforeCommit)에 올려서 row 락을 커밋까지만 잡는다. 한 트랜잭션의 여러 변경은 한번으로 모은다.
+    같은 목록을 바꾸는 트랜잭션은 이 row 에서 커밋 순서대로 줄을 선다.
+ */
+@Component
+public class ResourceVersions {
+    public enum Resource {
+        MEMBERS, ITEMS, ORDERS
+    }
+
+    private final ResourceVersionRepository resourceVersionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ResourceVersions(ResourceVersionRepository resourceVersionRepository, PlatformTransactionManager transactionManager) {
+        this.resourceVersionRepository = resourceVersionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // 없는 버전 row 를 만든다. 다른 인스턴스가 동시에 만들었으면 그대로 쓴다
+    @PostConstruct
+    public void init() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> createMissing());
+        } catch (DataAccessException e) {
+            if (!transactionTemplate.execute(status -> missing().isEmpty())) {
+                throw e;
+            }
+        }
+    }
+
+    private void createMissing() {
+        long now = System.currentTimeMillis();
+        missing().forEach(resource -> resourceVersionRepository.save(ResourceVersion.of(resource.name(), now)));
+    }
+
+    private List<Resource> missing() {
+        List<String> existing = resourceVersionRepository.findAllResources();
+        List<Resource> missing = new ArrayList<>();
+        for (Resource resource : Resource.values()) {
+            if (!existing.contains(resource.name())) {
+                missing.add(resource);
+            }
+        }
+        return missing;
+    }
+
+    public Stamp get(Resource resource) {
+        Object[] row = resourceVersionRepository.findStamp(resource.name());
+        if (row == null) {
+            throw new IllegalStateException("버전 row 가 없습니다. resource=" + resource);
+        }
+        return new Stamp((Long) row[0], (Long) row[1]);
+    }
+
+    // 현재 트랜잭션이 커밋될 때 같이 버전을 올린다, 롤백되면 그대로
+    public void changed(Resource... resources) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> bump(EnumSet.of(resources[0], resources)));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Resource> pending = (Set<Resource>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Resource> changed = EnumSet.noneOf(Resource.class);
+            TransactionSynchronizationManager.bindResource(this, changed);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    bump(changed);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ResourceVersions.this);
+                }
+            });
+            pending = changed;
+        }
+        pending.addAll(List.of(resources));
+    }
+
+    private void bump(Set<Resource> resources) {
+        if (resources.isEmpty()) {
+            return;
+        }
+        resourceVersionRepository.increment(resources.stream().map(Resource::name).collect(Collectors.toList()),
+                System.currentTimeMillis());
+    }
+
+    // 버전과 변경 시각을 한번에 읽은 값
+    public static final class Stamp {
+        private final long version;
+        private final long lastModified;
+
+        private Stamp(long version, long lastModified) {
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return "\"" + version + "\"";
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.BaseSessionEventListener;
+
+/*
+    flush 할 때 영속성 컨텍스트에 들어있는 엔티티 / 컬렉션 수 (커밋 직전 flush 포함)
+    hibernate.session.events.auto 로 세션마다 생성되므로 스프링 빈이 아니고, 메트릭은 글로벌 레지스트리에 기록한다.
+ */
+public class PersistenceContextMetrics extends BaseSessionEventListener {
+    private static final DistributionSummary ENTITIES = DistributionSummary.builder("hibernate.flush.entities")
+            .description("flush 시점 영속성 컨텍스트의 엔티티 수")
+            .register(Metrics.globalRegistry);
+    private static final DistributionSummary COLLECTIONS = DistributionSummary.builder("hibernate.flush.collections")
+            .description("flush 시점 영속성 컨텍스트의 컬렉션 수")
+            .register(Metrics.globalRegistry);
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        ENTITIES.record(numberOfEntities);
+        COLLECTIONS.record(numberOfCollections);
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+    스레드(요청) 단위 SQL 실행 통계, start() 부터 stop() 까지 실행된 statement 수와 JDBC 시간을 모은다.
+    중첩해서 시작할 수 있고 (요청 안에서 테스트 측정 등), 안쪽에서 실행된 SQL 은 바깥쪽에도 같이 더해진다.
+    같은 모양의 select 가 여러번 실행되면 N+1 로 의심한다.
+ */
+public final class SqlStatistics {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+"); // IN (?, ?, ?) -> IN (?...)
+
+    private final SqlStatistics parent;
+    private final Map<String, Integer> selectShapes = new LinkedHashMap<>();
+    private int statementCount;
+    private long elapsedNanos;
+
+    private SqlStatistics(SqlStatistics parent) {
+        this.parent = parent;
+    }
+
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    // 측정 중이 아니면 null
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    public void stop() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+
+    static void record(String sql, long nanos) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        for (; statistics != null; statistics = statistics.parent) {
+            statistics.add(shape, nanos);
+        }
+    }
+
+    private void add(String shape, long nanos) {
+        statementCount++;
+        elapsedNanos += nanos;
+        if (shape.regionMatches(true, 0, "select", 0, 6)) {
+            selectShapes.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // threshold 번 이상 반복된 select 모양 -> 실행 횟수
+    public Map<String, Integer> getRepeatedSelects(int threshold) {
+        return selectShapes.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return PARAMETER_LIST.matcher(shape).replaceAll("?...");
+    }
+}
@@ -0,0 +1,77 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+    HTTP 요청마다 실행된 SQL 수와 JDBC 시간을 센다.
+    - 메트릭 : http.server.requests.sql.statements / http.server.requests.sql.time (uri 패턴별)
+    - 같은 select 가 n-plus-one-threshold 번 이상 반복되면 N+1 로 보고 warn 로그 + http.server.requests.sql.n_plus_one 카운터
+    응답 헤더는 본문을 쓰기 전에 넣어야 하므로 SqlStatisticsHeaderAdvice 에서 붙인다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jpashop.sql.n-plus-one-threshold:5}")
+    private int nPlusOneThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statistics.stop();
+            report(request, statistics);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("HTTP 요청 한번에 실행된 SQL 수")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getStatementCount());
+        Timer.builder("http.server.requests.sql.time")
+                .description("HTTP 요청 한번의 JDBC 실행 시간 합계")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getElapsedNanos(), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> repeated = statistics.getRepeatedSelects(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("http.server.requests.sql.n_plus_one")
+                    .description("같은 select 가 반복 실행된 요청 수")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("N+1 의심 {} {}: statements={}, repeated={}", request.getMethod(), uri, statistics.getStatementCount(), repeated);
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} {}: statements={}, jdbc={}ms", request.getMethod(), uri,
+                    statistics.getStatementCount(), TimeUnit.NANOSECONDS.toMillis(statistics.getElapsedNanos()));
+        }
+    }
+}
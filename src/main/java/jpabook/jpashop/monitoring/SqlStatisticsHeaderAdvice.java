@@ -0,0 +1,33 @@
+package jpabook.jpashop.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+// API 응답에 X-Sql-Count / X-Sql-Time-Ms 헤더, 본문을 쓰기 직전까지 실행된 SQL 기준
+@ControllerAdvice
+public class SqlStatisticsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            response.getHeaders().set("X-Sql-Count", String.valueOf(statistics.getStatementCount()));
+            response.getHeaders().set("X-Sql-Time-Ms", String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getElapsedNanos())));
+        }
+        return body;
+    }
+}
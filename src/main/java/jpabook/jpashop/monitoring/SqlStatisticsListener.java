@@ -0,0 +1,17 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+// p6spy 가 감싼 DataSource 에서 실행되는 모든 statement 를 현재 스레드의 SqlStatistics 에 기록한다
+@Component
+public class SqlStatisticsListener extends JdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlStatistics.record(statementInformation.getSql(), timeElapsedNanos);
+    }
+}
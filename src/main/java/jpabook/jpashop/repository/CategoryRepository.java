@@ -0,0 +1,111 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    // 트리 스냅샷용, [id, 이름, 부모 id, path]
+    public List<Object[]> findAllNodes() {
+        return em.createQuery("select c.id, c.name, c.parent.id, c.path from Category c order by c.path, c.id", Object[].class)
+                .getResultList();
+    }
+
+    // 자기 자신과 모든 자손, 쿼리 한번 (path 인덱스 범위 조회)
+    public List<Category> findSubtree(Long categoryId, String subtreePath) {
+        return em.createQuery(
+                "select c from Category c" +
+                        " where c.id = :categoryId or c.path like :subtreePath" +
+                        " order by c.path, c.id", Category.class)
+                .setParameter("categoryId", categoryId)
+                .setParameter("subtreePath", subtreePath + "%")
+                .getResultList();
+    }
+
+    // 조상들, path 에 있는 id 로 IN 한번
+    public List<Category> findAllById(Collection<Long> ids) {
+        return em.createQuery("select c from Category c where c.id in :ids order by c.path", Category.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    // 카테고리와 자손 카테고리에 속한 상품, 쿼리 한번
+    public List<Item> findItemsInSubtree(Long categoryId, String subtreePath) {
+        return em.createQuery(
+                "select distinct i from Category c" +
+                        " join c.items i" +
+                        " where c.id = :categoryId or c.path like :subtreePath", Item.class)
+                .setParameter("categoryId", categoryId)
+                .setParameter("subtreePath", subtreePath + "%")
+                .getResultList();
+    }
+
+    /*
+    카테고리의 상품을 item_id 순으로 afterId 다음 limit 건, category_item (category_id, item_id) 인덱스를 탄다.
+    Category.items / Item.categories 컬렉션을 초기화하지 않고 조인으로 필요한 만큼만 읽는다.
+    상품은 싱글 테이블이라 Book / Album / Movie 컬럼도 같은 row 에서 함께 읽힌다.
+    subtreePath 가 있으면 자손 카테고리의 상품까지 (여러 카테고리에 속한 상품은 한번만)
+     */
+    public List<Item> findItemsPage(Long categoryId, String subtreePath, Long afterId, int limit) {
+        String jpql = "select distinct i from Category c join c.items i where (c.id = :categoryId";
+        if (subtreePath != null) {
+            jpql += " or c.path like :subtreePath";
+        }
+        jpql += ")";
+        if (afterId != null) {
+            jpql += " and i.id > :afterId";
+        }
+        jpql += " order by i.id";
+
+        TypedQuery<Item> query = em.createQuery(jpql, Item.class)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setParameter("categoryId", categoryId)
+                .setMaxResults(limit);
+        if (subtreePath != null) {
+            query.setParameter("subtreePath", subtreePath + "%");
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    // 카테고리별 상품 수 (category_id -> 상품 수), category_item 만 집계하고 상품이 없는 카테고리는 빠진다
+    public Map<Long, Long> countItemsByCategory() {
+        return em.createQuery("select c.id, count(i.id) from Category c join c.items i group by c.id", Object[].class)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
+
+    // 하위 트리를 옮길 때 자손들의 path 앞부분을 한번에 바꾼다
+    public int replacePathPrefix(String oldPrefix, String newPrefix) {
+        return em.createQuery(
+                "update Category c set c.path = concat(:newPrefix, substring(c.path, :from))" +
+                        " where c.path like :oldPrefix")
+                .setParameter("newPrefix", newPrefix)
+                .setParameter("from", oldPrefix.length() + 1)
+                .setParameter("oldPrefix", oldPrefix + "%")
+                .executeUpdate();
+    }
+}
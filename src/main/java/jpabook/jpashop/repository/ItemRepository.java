@@ -1,10 +1,13 @@
 package jpabook.jpashop.repository;
 
+import jpabook.jpashop.domain.exception.NotEnoughStockException;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -29,4 +32,62 @@ public class ItemRepository {
         return em.createQuery("select  i from Item i", Item.class)
                 .getResultList();
     }
+
+    public List<Item> findAllById(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /*
+    재고 차감을 조건부 UPDATE 한번으로 처리한다.
+    재고 확인과 차감이 DB 안에서 원자적으로 일어나므로 같은 상품에 주문이 몰려도 차감이 유실되거나 음수가 되지 않는다.
+    update versioned 로 version 도 올려서, 같은 상품을 읽어 두고 수정하는 쪽(updateItem, 주문 취소)이 덮어쓰지 못하게 한다.
+    벌크 연산은 영속성 컨텍스트를 거치지 않으므로, 이미 로딩된 엔티티가 있으면 다시 읽어서 맞춰준다.
+    로딩되지 않았다면 프록시를 반환하고, 처음 사용할 때 차감된 재고로 조회된다.
+     */
+    public Item removeStock(Long itemId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("주문 수량은 1 이상이어야 합니다.");
+        }
+
+        int updated = em.createQuery(
+                        "update versioned Item i set i.stockQuantity = i.stockQuantity - :quantity" +
+                                " where i.id = :id and i.stockQuantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .executeUpdate();
+        if (updated == 0) {
+            // 실패한 경우에만 한번 더 확인해서 없는 상품과 재고 부족을 구분한다
+            if (!exists(itemId)) {
+                throw new IllegalArgumentException("상품이 없습니다. id=" + itemId);
+            }
+            throw new NotEnoughStockException("need more stock");
+        }
+
+        Item item = em.getReference(Item.class, itemId);
+        if (Hibernate.isInitialized(item)) {
+            em.refresh(item);
+        }
+        return item;
+    }
+
+    // removeStock 으로 차감한 재고를 되돌린다. (같은 트랜잭션에서 실패한 주문의 보상)
+    public void addStock(Long itemId, int quantity) {
+        em.createQuery("update versioned Item i set i.stockQuantity = i.stockQuantity + :quantity where i.id = :id")
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .executeUpdate();
+
+        Item item = em.getReference(Item.class, itemId);
+        if (Hibernate.isInitialized(item)) {
+            em.refresh(item);
+        }
+    }
+
+    private boolean exists(Long itemId) {
+        return em.createQuery("select count(i) from Item i where i.id = :id", Long.class)
+                .setParameter("id", itemId)
+                .getSingleResult() > 0;
+    }
 }
@@ -2,11 +2,14 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
@@ -17,6 +20,11 @@ public class MemberRepository {
         em.persist(member);
     }
 
+    // 이름 유니크 제약 위반을 커밋 전에 DataIntegrityViolationException 으로 받기 위해 (@Repository 예외 변환)
+    public void flush() {
+        em.flush();
+    }
+
     public Member findOne(Long id) {
         return em.find(Member.class, id); // type, PK
     }
@@ -27,9 +35,38 @@ public class MemberRepository {
                 .getResultList();
     }
 
+    public List<Member> findAllById(Collection<Long> ids) {
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
                 .getResultList();
     }
+
+    // 존재 여부만 확인, 엔티티를 만들지 않고 이름 유니크 인덱스만 조회한다
+    public boolean existsByName(String name) {
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    // 전체 회원 이름을 커서로 읽는다. 트랜잭션 안에서 사용하고 스트림은 닫아야 한다
+    public Stream<String> streamAllNames() {
+        return em.createQuery("select m.name from Member m", String.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream();
+    }
+
+    // 회원 이름 인덱스 로딩용, [id, name]
+    public Stream<Object[]> streamAllIdAndNames() {
+        return em.createQuery("select m.id, m.name from Member m", Object[].class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream();
+    }
 }
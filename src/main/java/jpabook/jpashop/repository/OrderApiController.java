@@ -1,22 +1,59 @@
 package jpabook.jpashop.repository;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jpabook.jpashop.api.PageCursor;
+import jpabook.jpashop.datasource.ReadYourWrites;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.service.BulkOrderLine;
+import jpabook.jpashop.domain.service.BulkOrderResult;
+import jpabook.jpashop.domain.service.OrderBulkService;
+import jpabook.jpashop.domain.service.OrderCommand;
+import jpabook.jpashop.domain.service.OrderGroupCommitter;
+import jpabook.jpashop.domain.service.ResourceVersions;
+import jpabook.jpashop.domain.service.ResourceVersions.Resource;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.query.OrderQueryService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
+import javax.validation.Valid;
+import javax.validation.Validator;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -24,6 +61,12 @@ import java.util.stream.Collectors;
 public class OrderApiController {
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderQueryService orderQueryService;
+    private final OrderBulkService orderBulkService;
+    private final OrderGroupCommitter orderGroupCommitter;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+    private final Validator validator;
 
     /*
         Entity 전체 노출 하는 버전
@@ -88,6 +131,7 @@ public class OrderApiController {
             @RequestParam(value = "offset", defaultValue = "0") int offset,
             @RequestParam(value = "limit", defaultValue = "100") int limit
     ) {
+        PageCursor.checkLimit(limit);
         // XtoOne 관계는 페치 조인으로 바로 가져온다
         List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
 
@@ -100,6 +144,33 @@ public class OrderApiController {
         return  result;
     }
 
+    /*
+    [Keyset 페이징]
+        v3.1 과 같이 ToOne 은 페치 조인, 컬렉션은 default_batch_fetch_size 로 조회한다.
+        offset 대신 이전 응답의 next 토큰을 after 로 넘기면 그 다음 주문부터 limit 건을 조회한다.
+        한 건을 더 조회해서 다음 페이지가 있는지 확인하고, 없으면 next 는 null 이다.
+     */
+    @GetMapping("api/v3.2/orders")
+    public OrderPage<OrderDto> ordersV3_keyset(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        PageCursor.checkLimit(limit);
+        List<Order> orders = orderRepository.findAllWithMemberDeliveryAfter(PageCursor.decode(after), limit + 1);
+
+        boolean hasNext = orders.size() > limit;
+        if (hasNext) {
+            orders = orders.subList(0, limit);
+        }
+
+        List<OrderDto> result = orders.stream()
+                .map(OrderDto::new)
+                .collect(Collectors.toList());
+
+        String next = hasNext ? PageCursor.encode(orders.get(orders.size() - 1).getId()) : null;
+        return new OrderPage<>(result, next);
+    }
+
     /*
     Query: 루트 1번, 컬렉션 N 번 실행
     ToOne(N:1, 1:1) 관계들을 먼저 조회하고, ToMany(1:N) 관계는 각각 별도로 처리한다.
@@ -119,12 +190,45 @@ public class OrderApiController {
 
     V5 방식 으로 최적화 하면 쿼리가 총 1 + 1번만 실행된다.
     상황에 따라 다르겠지만 운영 환경에서 100배 이상의 성능 차이가 날 수 있다.
+
+    주문 목록이 바뀌지 않았으면 (If-None-Match 가 주문 목록 ETag 와 같으면) 쿼리 없이 304 를 반환한다.
      */
     @GetMapping("api/v5/orders")
-    public List<OrderQueryDto> ordersV5() {
+    public List<OrderQueryDto> ordersV5(WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         return orderQueryRepository.findAllByDto_optimization();
     }
 
+    /*
+    V5 페이징 버전
+    주문을 offset, limit 으로 잘라서 조회하고, 주문상품 IN 쿼리는 최대 128개씩 나눠서 실행한다. (파라미터 수는 2의 거듭제곱으로 채움)
+    Query: 루트 1번, 컬렉션 ceil(limit / 128)번
+     */
+    @GetMapping("api/v5.1/orders")
+    public List<OrderQueryDto> ordersV5_page(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        PageCursor.checkLimit(limit);
+        return orderQueryRepository.findAllByDto_optimization(offset, limit);
+    }
+
+    /*
+    V5 와 같은 응답을 DTO 없이 만든다.
+    JDBC row 를 읽으면서 JsonGenerator 에 바로 쓰므로 OrderQueryDto 목록을 만들고 Jackson 이 다시 읽는 과정이 없다.
+    응답 본문은 V5 와 바이트 단위로 같다. (주문상품을 조인해서 쿼리 한번)
+     */
+    @GetMapping(value = "api/v5.2/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void ordersV5_json(WebRequest request, HttpServletResponse response) throws IOException {
+        if (notModified(request)) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        orderQueryService.writeOrders(response.getOutputStream());
+    }
+
     // Query 한번에 데이터를 조회
     /*
     쿼리 한번으로 최적화 되어서 상당히 좋아보이지만, Order를 기준으로 페 이징이 불가능하다.
@@ -136,6 +240,206 @@ public class OrderApiController {
         return orderQueryRepository.findAllByDto_flat();
     }
 
+    // V6 와 같은 응답을 DTO 없이 만든다. (응답 본문은 V6 와 바이트 단위로 같다)
+    @GetMapping(value = "api/v6.2/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void ordersV6_json(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        orderQueryService.writeOrderFlats(response.getOutputStream());
+    }
+
+    /*
+    V6 페이징 버전
+    쿼리 한번으로 flat row 를 가져오되, order_id 순으로 읽으면서 주문 단위로 접어서 V5 와 같은 모양으로 반환한다.
+    row 수가 아니라 주문 수 기준으로 limit 건을 자르고, 다음 페이지는 v3.2 와 같이 next 토큰으로 이어서 조회한다.
+     */
+    @GetMapping("api/v6.1/orders")
+    public OrderPage<OrderQueryDto> ordersV6_page(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        PageCursor.checkLimit(limit);
+        List<OrderQueryDto> orders = orderQueryService.findOrdersByFlat(PageCursor.decode(after), limit + 1);
+
+        boolean hasNext = orders.size() > limit;
+        if (hasNext) {
+            orders = orders.subList(0, limit);
+        }
+
+        String next = hasNext ? PageCursor.encode(orders.get(orders.size() - 1).getOrderId()) : null;
+        return new OrderPage<>(orders, next);
+    }
+
+    /*
+    [요약 테이블 조회]
+    주문할 때 함께 저장해 둔 order_summary 에서 조인 없이 쿼리 한번으로 목록을 조회한다. (주문상품은 이름 / 개수만)
+    상태(status), 회원 이름 접두어(name)로 거를 수 있고, 다음 페이지는 v3.2 와 같이 next 토큰으로 이어서 조회한다.
+     */
+    @GetMapping("api/v7/orders")
+    public OrderPage<OrderSummaryDto> ordersV7(
+            @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            WebRequest request
+    ) {
+        PageCursor.checkLimit(limit);
+        if (notModified(request)) {
+            return null;
+        }
+        List<OrderSummary> summaries = orderQueryService.findOrderSummaries(status, name, PageCursor.decode(after), limit + 1);
+
+        boolean hasNext = summaries.size() > limit;
+        if (hasNext) {
+            summaries = summaries.subList(0, limit);
+        }
+
+        List<OrderSummaryDto> result = summaries.stream()
+                .map(OrderSummaryDto::new)
+                .collect(Collectors.toList());
+
+        String next = hasNext ? PageCursor.encode(summaries.get(summaries.size() - 1).getOrderId()) : null;
+        return new OrderPage<>(result, next);
+    }
+
+    /*
+    [전체 주문 내보내기]
+    v6 처럼 쿼리 한번으로 조회하지만 List 로 모으지 않고 커서로 읽으면서 주문 단위로 묶어 바로 응답에 쓴다.
+    한 줄에 주문 하나씩 NDJSON 으로 내려가며, 주문 수가 많아도 힙 사용량이 늘지 않는다.
+    응답을 다 쓸 때까지 트랜잭션(커넥션)을 잡고 있으므로 내보내기 용도로만 사용한다.
+     */
+    @GetMapping(value = "api/v6/orders/export", produces = "application/x-ndjson")
+    public void ordersExport(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        orderQueryService.exportOrders(response.getOutputStream());
+    }
+
+    /*
+    장바구니 주문, 여러 상품을 한번의 요청과 트랜잭션으로 주문한다.
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse saveOrderV1(@RequestBody @Valid CreateOrderRequest request) {
+        Long id = orderGroupCommitter.order(new OrderCommand(request.getMemberId(), toItemCounts(request)));
+        return new CreateOrderResponse(id);
+    }
+
+    /*
+    대량 주문 적재, 파트너 피드처럼 수십만 건을 한번에 넣는 용도
+    요청 본문은 한 줄에 주문 하나씩(v1 장바구니 주문과 같은 모양) NDJSON 으로 받는다.
+    전체를 메모리에 올리지 않고 읽으면서 청크 단위로 커밋하고, 청크별 처리 시간을 응답으로 돌려준다.
+    줄마다 따로 읽고 검증하므로 잘못된 줄은 줄 번호와 함께 실패로 남기고 나머지 줄은 계속 처리한다.
+     */
+    @PostMapping(value = "/api/v1/orders/bulk", consumes = "application/x-ndjson")
+    public BulkOrderResult saveOrdersBulk(HttpServletRequest request) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(CreateOrderRequest.class);
+        try (BufferedReader body = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            Iterator<BulkOrderLine> lines = new Iterator<BulkOrderLine>() {
+                private int lineNumber;
+                private String next = readLine();
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public BulkOrderLine next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    BulkOrderLine line = toBulkOrderLine(reader, lineNumber, next);
+                    next = readLine();
+                    return line;
+                }
+
+                // 빈 줄은 건너뛴다
+                private String readLine() {
+                    try {
+                        String line;
+                        do {
+                            line = body.readLine();
+                            lineNumber++;
+                        } while (line != null && line.isBlank());
+                        return line;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            return orderBulkService.order(lines);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // 한 줄을 읽고 검증한다, 실패하면 원인을 담은 잘못된 줄
+    private BulkOrderLine toBulkOrderLine(ObjectReader reader, int lineNumber, String json) {
+        CreateOrderRequest line;
+        try {
+            line = reader.readValue(json);
+        } catch (JsonProcessingException e) {
+            return BulkOrderLine.invalid(lineNumber, "JSON 형식 오류: " + e.getOriginalMessage());
+        }
+        if (line == null) {
+            return BulkOrderLine.invalid(lineNumber, "주문이 없습니다.");
+        }
+        Set<ConstraintViolation<CreateOrderRequest>> violations = validator.validate(line);
+        if (!violations.isEmpty()) {
+            return BulkOrderLine.invalid(lineNumber, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return BulkOrderLine.of(lineNumber, new OrderCommand(line.getMemberId(), toItemCounts(line)));
+    }
+
+    // 주문 목록 버전으로 ETag / Last-Modified 를 설정하고, 요청의 값과 같으면 true (304), 다르면 이어지는 조회를 primary 로
+    private boolean notModified(WebRequest request) {
+        ResourceVersions.Stamp stamp = resourceVersions.get(Resource.ORDERS);
+        if (request.checkNotModified(stamp.getEtag(), stamp.getLastModified())) {
+            return true;
+        }
+        ReadYourWrites.readPrimary(); // 복제 지연된 주문이 새 ETag 로 캐시되지 않도록
+        return false;
+    }
+
+    // 같은 상품이 여러 줄로 오면 수량을 합친다
+    private static Map<Long, Integer> toItemCounts(CreateOrderRequest request) {
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        request.getOrderItems()
+                .forEach(line -> itemCounts.merge(line.getItemId(), line.getCount(), Integer::sum));
+        return itemCounts;
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty @Valid
+        private List<@NotNull OrderLineRequest> orderItems;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long id;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class OrderPage<T> {
+        private List<T> data;
+        private String next; // 다음 페이지 토큰, 마지막 페이지면 null
+    }
+
     @Data
     static class OrderDto {
         private Long orderId;
@@ -159,6 +463,29 @@ public class OrderApiController {
         }
     }
 
+    @Data
+    static class OrderSummaryDto {
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Address address;
+        private int totalPrice;
+        private int itemCount;      // 주문상품 수
+        private String itemNames;
+
+        public OrderSummaryDto(OrderSummary summary) {
+            orderId = summary.getOrderId();
+            name = summary.getMemberName();
+            orderDate = summary.getOrderDate();
+            orderStatus = summary.getStatus();
+            address = summary.getAddress();
+            totalPrice = summary.getTotalPrice();
+            itemCount = summary.getLineCount();
+            itemNames = summary.getItemNames();
+        }
+    }
+
     @Getter
     static class OrderItemDto {
         private String itemName;    // 상품명
@@ -6,16 +6,30 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
+    // 검색 조건 비트, 조합마다 named query 하나
+    private static final int STATUS = 1;
+    private static final int MEMBER_NAME = 1 << 1;
+    private static final int MEMBER_IDS = 1 << 2;
+    private static final int DATE_FROM = 1 << 3;
+    private static final int DATE_TO = 1 << 4;
+
     private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final String[] searchQueryNames = new String[1 << 5];
 
     public void save(Order order) {
         em.persist(order);
@@ -49,7 +63,27 @@ public class OrderRepository {
             } else {
                 jpql += " and";
             }
-            jpql += " m.name like :name";
+            jpql += " m.name like :name escape '!'";
+        }
+
+        //주문일 검색
+        if (orderSearch.getOrderDateFrom() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.orderDate >= :from";
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.orderDate < :to";
         }
 
         TypedQuery<Order> query = em.createQuery(jpql, Order.class)
@@ -59,7 +93,13 @@ public class OrderRepository {
             query = query.setParameter("status", orderSearch.getOrderStatus());
         }
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
+            query = query.setParameter("name", namePrefix(orderSearch.getMemberName()));
+        }
+        if (orderSearch.getOrderDateFrom() != null) {
+            query = query.setParameter("from", startOf(orderSearch.getOrderDateFrom()));
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            query = query.setParameter("to", endOf(orderSearch.getOrderDateTo()));
         }
 
         return query.getResultList();
@@ -85,16 +125,130 @@ public class OrderRepository {
         //회원 이름 검색
         if (StringUtils.hasText(orderSearch.getMemberName())) {
             Predicate name =
-                    cb.like(m.<String>get("name"), "%" +
-                            orderSearch.getMemberName() + "%");
+                    cb.like(m.<String>get("name"), namePrefix(orderSearch.getMemberName()), '!');
             criteria.add(name);
         }
 
+        //주문일 검색
+        if (orderSearch.getOrderDateFrom() != null) {
+            criteria.add(cb.greaterThanOrEqualTo(o.<LocalDateTime>get("orderDate"), startOf(orderSearch.getOrderDateFrom())));
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            criteria.add(cb.lessThan(o.<LocalDateTime>get("orderDate"), endOf(orderSearch.getOrderDateTo())));
+        }
+
         cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
         TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000건
         return query.getResultList();
     }
 
+    /*
+        미리 컴파일한 검색 쿼리
+        findAllByString / findAllByCriteria 는 호출마다 JPQL 문자열이나 Criteria 트리를 새로 만들고 파싱/plan 캐시 조회를 한다.
+        가능한 조건 조합마다 JPQL 을 기동 시점에 한번 만들어 named query 로 등록해 두고,
+        검색할 때는 조건 비트로 배열에서 이름만 골라 사용한다. (문자열 조립 없음)
+     */
+    @PostConstruct
+    public void registerSearchQueries() {
+        EntityManager registering = emf.createEntityManager();
+        try {
+            for (int filters = 0; filters < searchQueryNames.length; filters++) {
+                if ((filters & MEMBER_NAME) != 0 && (filters & MEMBER_IDS) != 0) {
+                    continue; // 회원 이름과 회원 id 조건은 같이 쓰지 않는다
+                }
+                String name = "Order.search." + filters;
+                emf.addNamedQuery(name, registering.createQuery(searchJpql(filters)));
+                searchQueryNames[filters] = name;
+            }
+        } finally {
+            registering.close();
+        }
+    }
+
+    public List<Order> findAllByPrecompiled(OrderSearch orderSearch) {
+        return findAllByPrecompiled(orderSearch, null);
+    }
+
+    /*
+        회원 이름 대신 회원 id 로 검색, MemberNameIndex 로 찾은 후보 회원 id 를 받는다.
+        회원 테이블을 조인해서 이름을 훑지 않고 orders 의 member_id 인덱스만 사용한다.
+     */
+    public List<Order> findAllByPrecompiled(OrderSearch orderSearch, Collection<Long> memberIds) {
+        int filters = 0;
+        if (orderSearch.getOrderStatus() != null) {
+            filters |= STATUS;
+        }
+        if (memberIds != null) {
+            filters |= MEMBER_IDS;
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            filters |= MEMBER_NAME;
+        }
+        if (orderSearch.getOrderDateFrom() != null) {
+            filters |= DATE_FROM;
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            filters |= DATE_TO;
+        }
+
+        TypedQuery<Order> query = em.createNamedQuery(searchQueryNames[filters], Order.class)
+                .setMaxResults(1000);
+        if ((filters & STATUS) != 0) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if ((filters & MEMBER_IDS) != 0) {
+            query.setParameter("memberIds", memberIds);
+        }
+        if ((filters & MEMBER_NAME) != 0) {
+            query.setParameter("name", namePrefix(orderSearch.getMemberName()));
+        }
+        if ((filters & DATE_FROM) != 0) {
+            query.setParameter("from", startOf(orderSearch.getOrderDateFrom()));
+        }
+        if ((filters & DATE_TO) != 0) {
+            query.setParameter("to", endOf(orderSearch.getOrderDateTo()));
+        }
+        return query.getResultList();
+    }
+
+    private static String searchJpql(int filters) {
+        List<String> conditions = new ArrayList<>();
+        if ((filters & STATUS) != 0) {
+            conditions.add("o.status = :status");
+        }
+        if ((filters & MEMBER_NAME) != 0) {
+            conditions.add("m.name like :name escape '!'");
+        }
+        if ((filters & MEMBER_IDS) != 0) {
+            conditions.add("o.member.id in :memberIds");
+        }
+        if ((filters & DATE_FROM) != 0) {
+            conditions.add("o.orderDate >= :from");
+        }
+        if ((filters & DATE_TO) != 0) {
+            conditions.add("o.orderDate < :to");
+        }
+
+        String jpql = (filters & MEMBER_NAME) != 0 ? "select o from Order o join o.member m" : "select o from Order o";
+        return conditions.isEmpty() ? jpql : jpql + " where " + String.join(" and ", conditions);
+    }
+
+    /*
+        회원 이름은 세 방식 모두 접두어로 검색한다. (MemberNameIndex.findIdsByPrefix 와 같은 규칙)
+        'name%' 는 회원 이름 유니크 인덱스를 탈 수 있다. 검색어의 %, _ 는 글자 그대로 비교한다.
+     */
+    private static String namePrefix(String name) {
+        return name.replaceAll("[!%_]", "!$0") + "%";
+    }
+
+    // 주문일 조건은 [from 00:00, to 다음날 00:00) 로 비교해서 order_date 인덱스를 그대로 사용한다
+    private static LocalDateTime startOf(LocalDate date) {
+        return date.atStartOfDay();
+    }
+
+    private static LocalDateTime endOf(LocalDate date) {
+        return date.plusDays(1).atStartOfDay();
+    }
+
     public List<Order> findAllWithMemberDelivery() {
         return em.createQuery(
                 "select o from Order o" +
@@ -105,13 +259,77 @@ public class OrderRepository {
 
     // v3 가 v4 보다는 약간의 성능 최적화가 되었지만 재활용이 어렵다는 점
     public List<OrderSimpleQueryDto> findOrderDtos() {
-        return em.createQuery("select new jpabook.jpashop.repository.OrderSimpleQueryDto(o.id, m.name,o.orderDate, o.status, d.address)" +
+        return em.createQuery("select new jpabook.jpashop.repository.OrderSimpleQueryDto(o.id, m.name,o.orderDate, o.status, d.address, o.totalPrice)" +
                         "from Order o" +
                         " join o.member m" +
                         " join o.delivery d", OrderSimpleQueryDto.class
         ).getResultList();
     }
 
+    /*
+    주문금액이 큰 순서로 조회, 저장된 total_price 만 사용하므로 order_item 을 읽지 않는다.
+    (total_price, order_id) 인덱스를 역순으로 읽는다. minTotalPrice 가 있으면 그 이상인 주문만
+    afterPrice / afterId 는 이전 페이지의 마지막 주문, 그 다음부터 limit 건 (offset 없이 인덱스에서 바로 이어 읽는다)
+     */
+    public List<OrderSimpleQueryDto> findOrderDtosByTotalPrice(Integer minTotalPrice, Integer afterPrice, Long afterId, int limit) {
+        String jpql = "select new jpabook.jpashop.repository.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice)" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.delivery d" +
+                " where 1 = 1";
+        if (minTotalPrice != null) {
+            jpql += " and o.totalPrice >= :minTotalPrice";
+        }
+        if (afterId != null) {
+            jpql += " and (o.totalPrice < :afterPrice or (o.totalPrice = :afterPrice and o.id < :afterId))";
+        }
+        jpql += " order by o.totalPrice desc, o.id desc";
+
+        TypedQuery<OrderSimpleQueryDto> query = em.createQuery(jpql, OrderSimpleQueryDto.class)
+                .setMaxResults(limit);
+        if (minTotalPrice != null) {
+            query.setParameter("minTotalPrice", minTotalPrice);
+        }
+        if (afterId != null) {
+            query.setParameter("afterPrice", afterPrice);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    // order_id 순으로 afterId 다음 limit 건의 id
+    public List<Long> findIdsAfter(Long afterId, int limit) {
+        String jpql = "select o.id from Order o";
+        if (afterId != null) {
+            jpql += " where o.id > :afterId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<Long> query = em.createQuery(jpql, Long.class)
+                .setMaxResults(limit);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    /*
+    저장된 주문금액이 주문상품 합계와 다른 주문, [주문 id, 저장된 금액, 주문상품 합계]
+    id 구간으로 잘라서 order_item 의 order_id 인덱스 범위만 읽는다.
+     */
+    public List<Object[]> findTotalPriceDrift(Long fromId, Long toId) {
+        return em.createQuery(
+                "select o.id, o.totalPrice, coalesce(sum(oi.orderPrice * oi.count), 0)" +
+                        " from Order o" +
+                        " left join o.orderItems oi" +
+                        " where o.id between :fromId and :toId" +
+                        " group by o.id, o.totalPrice" +
+                        " having o.totalPrice <> coalesce(sum(oi.orderPrice * oi.count), 0)", Object[].class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .getResultList();
+    }
+
     public List<Order> findAllWithItem() {
         return em.createQuery(
                 "select distinct o from Order o" +
@@ -132,4 +350,26 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    /*
+        Keyset(seek) 페이징
+        offset 방식은 앞의 row 를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+        마지막으로 조회한 order_id 이후부터 PK 인덱스를 타고 limit 만큼만 읽으므로 깊이와 상관없이 일정하다.
+     */
+    public List<Order> findAllWithMemberDeliveryAfter(Long afterId, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (afterId != null) {
+            jpql += " where o.id > :afterId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
 }
@@ -3,9 +3,16 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter @Setter
 public class OrderSearch {
     private String memberName; // 회원 이름
     private OrderStatus orderStatus; // 주문 상태
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom; // 주문일 시작 (포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo; // 주문일 끝 (포함)
 }
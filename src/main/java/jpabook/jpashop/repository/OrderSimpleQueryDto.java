@@ -14,13 +14,15 @@ public class OrderSimpleQueryDto {
     private LocalDateTime orderDate;
     private OrderStatus orderStatus;
     private Address address;
+    private int totalPrice;
 
     public OrderSimpleQueryDto(Long orderId, String name, LocalDateTime
-            orderDate, OrderStatus orderStatus, Address address) {
+            orderDate, OrderStatus orderStatus, Address address, int totalPrice) {
         this.orderId = orderId;
         this.name = name;
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
         this.address = address;
+        this.totalPrice = totalPrice;
     }
 }
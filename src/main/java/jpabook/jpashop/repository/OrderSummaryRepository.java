@@ -0,0 +1,108 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+    private final EntityManager em;
+
+    public void save(OrderSummary summary) {
+        em.persist(summary);
+    }
+
+    public OrderSummary findOne(Long orderId) {
+        return em.find(OrderSummary.class, orderId);
+    }
+
+    /*
+    주문 목록, 조인 없이 order_summary 한 테이블에서 keyset 으로 limit 건을 읽는다.
+    상태 조건이 있으면 (status, order_id) 인덱스, 없으면 PK 를 타고 afterId 이후부터 읽는다.
+    회원 이름은 접두어로 검색한다.
+     */
+    public List<OrderSummary> findPage(OrderStatus status, String memberName, Long afterId, int limit) {
+        String jpql = "select s from OrderSummary s where 1 = 1";
+        if (status != null) {
+            jpql += " and s.status = :status";
+        }
+        if (StringUtils.hasText(memberName)) {
+            jpql += " and s.memberName like :name escape '!'";
+        }
+        if (afterId != null) {
+            jpql += " and s.orderId > :afterId";
+        }
+        jpql += " order by s.orderId";
+
+        TypedQuery<OrderSummary> query = em.createQuery(jpql, OrderSummary.class)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setMaxResults(limit);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (StringUtils.hasText(memberName)) {
+            query.setParameter("name", memberName.replaceAll("[!%_]", "!$0") + "%");
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    // 회원 이름 변경, 그 회원의 주문 요약을 벌크 update 한번으로 고친다
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderSummary s set s.memberName = :memberName" +
+                        " where s.orderId in (select o.id from Order o where o.member.id = :memberId)")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    // 상품을 포함한 주문 id, order_id 순으로 afterId 다음 limit 건
+    public List<Long> findOrderIdsByItem(Long itemId, Long afterId, int limit) {
+        String jpql = "select distinct oi.order.id from OrderItem oi where oi.item.id = :itemId";
+        if (afterId != null) {
+            jpql += " and oi.order.id > :afterId";
+        }
+        jpql += " order by oi.order.id";
+
+        TypedQuery<Long> query = em.createQuery(jpql, Long.class)
+                .setParameter("itemId", itemId)
+                .setMaxResults(limit);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    // [주문 id, 상품 이름], 주문상품 순서대로
+    public List<Object[]> findItemNames(Collection<Long> orderIds) {
+        return em.createQuery("select oi.order.id, i.name from OrderItem oi join oi.item i" +
+                        " where oi.order.id in :orderIds order by oi.order.id, oi.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    public int updateItemNames(Long orderId, String itemNames) {
+        return em.createQuery("update OrderSummary s set s.itemNames = :itemNames where s.orderId = :orderId")
+                .setParameter("itemNames", itemNames)
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+    }
+
+    // 다시 만들기 전에 기존 요약을 지운다
+    public int deleteAllById(Collection<Long> orderIds) {
+        return em.createQuery("delete from OrderSummary s where s.orderId in :orderIds")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+}
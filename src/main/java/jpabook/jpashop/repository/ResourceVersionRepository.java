@@ -0,0 +1,50 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.ResourceVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ResourceVersionRepository {
+    private final EntityManager em;
+
+    public void save(ResourceVersion resourceVersion) {
+        em.persist(resourceVersion);
+    }
+
+    // [version, lastModified], 엔티티를 만들지 않고 PK 로 한 row 만 읽는다. 없으면 null
+    public Object[] findStamp(String resource) {
+        List<Object[]> rows = em.createQuery(
+                        "select v.version, v.lastModified from ResourceVersion v where v.resource = :resource", Object[].class)
+                .setParameter("resource", resource)
+                .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public List<String> findAllResources() {
+        return em.createQuery("select v.resource from ResourceVersion v", String.class)
+                .getResultList();
+    }
+
+    /*
+    버전을 하나씩 올린다. 변경 시각은 뒤로 가지 않는다 (인스턴스 사이 시계 차이)
+    먼저 flush 해서 트랜잭션의 다른 row 락을 모두 잡은 뒤에 버전 row 를 잠근다.
+    버전 row 가 항상 마지막 락이어야 커밋 시점 flush 의 락과 엇갈려 교착되지 않는다.
+     */
+    public int increment(Collection<String> resources, long now) {
+        em.flush();
+        return em.createQuery(
+                        "update ResourceVersion v" +
+                                " set v.version = v.version + 1," +
+                                " v.lastModified = case when v.lastModified > :now then v.lastModified else :now end" +
+                                " where v.resource in :resources")
+                .setParameter("now", now)
+                .setParameter("resources", resources)
+                .executeUpdate();
+    }
+}
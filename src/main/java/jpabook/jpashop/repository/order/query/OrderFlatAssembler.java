@@ -0,0 +1,48 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/*
+    V6 flat row 를 OrderQueryDto / OrderItemQueryDto 트리로 접는다.
+    row 는 order_id 순으로 들어와야 한다. 같은 주문의 row 가 연속으로 오는 동안 주문상품만 쌓고,
+    다른 주문의 row 가 오면 묶고 있던 주문을 consumer 로 넘긴다. 한번 훑는 것으로 끝나고 주문 한 건만 들고 있는다.
+ */
+public class OrderFlatAssembler {
+    private final Consumer<OrderQueryDto> consumer;
+    private OrderQueryDto current;
+
+    public OrderFlatAssembler(Consumer<OrderQueryDto> consumer) {
+        this.consumer = consumer;
+    }
+
+    public void add(OrderFlatDto flat) {
+        startOrder(flat.getOrderId(), flat.getName(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress());
+        current.getOrderItems().add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+    }
+
+    // 주문상품이 없는 주문 (left join 으로 주문상품 컬럼이 null 인 row), orderItems 는 빈 목록
+    public void addWithoutItems(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address) {
+        startOrder(orderId, name, orderDate, orderStatus, address);
+    }
+
+    // 묶고 있던 마지막 주문을 넘긴다
+    public void finish() {
+        if (current != null) {
+            consumer.accept(current);
+            current = null;
+        }
+    }
+
+    private void startOrder(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address) {
+        if (current == null || !current.getOrderId().equals(orderId)) {
+            finish();
+            current = new OrderQueryDto(orderId, name, orderDate, orderStatus, address);
+            current.setOrderItems(new ArrayList<>());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+/*
+    주문 조회 결과를 DTO 없이 JSON 으로 바로 쓴다.
+    V5 / V6 는 row 마다 OrderQueryDto, OrderItemQueryDto, Address, List 를 만들고 Jackson 이 그것을 다시 리플렉션으로 읽는다.
+    여기서는 JDBC row 를 읽으면서 JsonGenerator 에 필드를 바로 쓰므로 row 당 남는 객체가 거의 없다.
+
+    응답은 V5 (OrderQueryDto) / V6 (OrderFlatDto) 를 Jackson 으로 직렬화한 것과 바이트 단위로 같아야 한다.
+    - 필드 이름과 순서는 DTO 의 필드 선언 순서, null 도 그대로 쓴다
+    - 주문일은 LocalDateTimeSerializer 기본 형식 (ISO_LOCAL_DATE_TIME, WRITE_DATES_AS_TIMESTAMPS 꺼짐)
+    - 주문상태는 enum 이름 (EnumType.STRING 으로 저장된 값)
+    DTO 쪽 모양이나 Jackson 설정이 바뀌면 OrderJsonTest 가 깨진다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderJsonQueryRepository {
+    private static final int FETCH_SIZE = 1000;
+    private static final DateTimeFormatter ORDER_DATE = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    /*
+    V5 와 같이 주문상품을 orderItems 로 묶는다. 주문상품이 없는 주문은 V5 처럼 "orderItems":null
+    V5 는 쿼리 2번이지만 주문상품을 주문 안에 바로 써야 하므로 쿼리 한번으로 조인해서 order_id 순으로 읽는다.
+     */
+    private static final String ORDERS_SQL =
+            "select o.order_id, m.name, o.order_date, o.status, d.city, d.street, d.zipcode," +
+                    " oi.order_item_id, i.name, oi.order_price, oi.count" +
+                    " from orders o" +
+                    " join member m on m.member_id = o.member_id" +
+                    " join delivery d on d.delivery_id = o.delivery_id" +
+                    " left join order_item oi on oi.order_id = o.order_id" +
+                    " left join item i on i.item_id = oi.item_id" +
+                    " order by o.order_id, oi.order_item_id";
+
+    // V6 와 같은 flat row
+    private static final String ORDER_FLATS_SQL =
+            "select o.order_id, m.name, o.order_date, o.status, d.city, d.street, d.zipcode," +
+                    " i.name, oi.order_price, oi.count" +
+                    " from orders o" +
+                    " join member m on m.member_id = o.member_id" +
+                    " join delivery d on d.delivery_id = o.delivery_id" +
+                    " join order_item oi on oi.order_id = o.order_id" +
+                    " join item i on i.item_id = oi.item_id" +
+                    " order by o.order_id, oi.order_item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // V5 와 같은 JSON 배열을 쓴다. (트랜잭션 안에서 호출해야 한다, 쓰기 실패는 UncheckedIOException)
+    @Timed("jpashop.order.query")
+    public void writeOrders(JsonGenerator generator) {
+        OrderRowWriter rowWriter = new OrderRowWriter(generator);
+        try {
+            generator.writeStartArray();
+            query(ORDERS_SQL, rowWriter);
+            rowWriter.finish();
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // V6 와 같은 JSON 배열을 쓴다. (트랜잭션 안에서 호출해야 한다, 쓰기 실패는 UncheckedIOException)
+    @Timed("jpashop.order.query")
+    public void writeOrderFlats(JsonGenerator generator) {
+        try {
+            generator.writeStartArray();
+            query(ORDER_FLATS_SQL, rs -> {
+                try {
+                    generator.writeStartObject();
+                    writeOrderFields(generator, rs);
+                    generator.writeStringField("itemName", rs.getString(8));
+                    generator.writeNumberField("orderPrice", rs.getInt(9));
+                    generator.writeNumberField("count", rs.getInt(10));
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // forward-only 커서로 FETCH_SIZE 씩 가져오면서 row 마다 rowWriter 를 호출한다
+    private void query(String sql, RowCallbackHandler rowWriter) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, rowWriter);
+    }
+
+    // 1 ~ 7 번 컬럼 : orderId, name, orderDate, orderStatus, address
+    private static void writeOrderFields(JsonGenerator generator, ResultSet rs) throws SQLException, IOException {
+        generator.writeNumberField("orderId", rs.getLong(1));
+        generator.writeStringField("name", rs.getString(2));
+        Timestamp orderDate = rs.getTimestamp(3);
+        generator.writeStringField("orderDate", orderDate == null ? null : orderDate.toLocalDateTime().format(ORDER_DATE));
+        generator.writeStringField("orderStatus", rs.getString(4));
+
+        String city = rs.getString(5);
+        String street = rs.getString(6);
+        String zipcode = rs.getString(7);
+        if (city == null && street == null && zipcode == null) {
+            generator.writeNullField("address"); // 하이버네이트는 컬럼이 모두 null 인 임베디드 타입을 null 로 읽는다
+            return;
+        }
+        generator.writeObjectFieldStart("address");
+        generator.writeStringField("city", city);
+        generator.writeStringField("street", street);
+        generator.writeStringField("zipcode", zipcode);
+        generator.writeEndObject();
+    }
+
+    /*
+    order_id 순으로 들어오는 row 를 주문 단위로 쓴다.
+    같은 주문의 row 가 이어지는 동안은 주문상품만 쓰고, 다른 주문의 row 가 오면 열어 둔 orderItems 와 주문을 닫는다.
+     */
+    private static final class OrderRowWriter implements RowCallbackHandler {
+        private final JsonGenerator generator;
+        private long currentOrderId;
+        private boolean open;
+
+        private OrderRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long orderId = rs.getLong(1);
+                if (!open || orderId != currentOrderId) {
+                    finish();
+                    generator.writeStartObject();
+                    writeOrderFields(generator, rs);
+
+                    rs.getLong(8);
+                    if (rs.wasNull()) { // 주문상품이 없는 주문
+                        generator.writeNullField("orderItems");
+                        generator.writeEndObject();
+                        return;
+                    }
+                    generator.writeArrayFieldStart("orderItems");
+                    currentOrderId = orderId;
+                    open = true;
+                }
+                generator.writeStartObject();
+                generator.writeStringField("itemName", rs.getString(9));
+                generator.writeNumberField("orderPrice", rs.getInt(10));
+                generator.writeNumberField("count", rs.getInt(11));
+                generator.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // 쓰고 있던 주문의 orderItems 와 주문을 닫는다
+        private void finish() throws IOException {
+            if (open) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                open = false;
+            }
+        }
+    }
+}
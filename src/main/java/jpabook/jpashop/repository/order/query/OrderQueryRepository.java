@@ -1,19 +1,35 @@
 package jpabook.jpashop.repository.order.query;
 
+import io.micrometer.core.annotation.Timed;
+import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
+    // IN 절로 한번에 보내는 최대 주문 수, 2의 거듭제곱이라 in_clause_parameter_padding 으로 채워도 넘지 않는다
+    private static final int IN_CHUNK_SIZE = 128;
+    private static final int FLAT_FETCH_SIZE = 500;
+
     private final EntityManager em;
 
+    @Timed("jpashop.order.query")
     public List<OrderQueryDto> findOrderQueryDtos() {
         List<OrderQueryDto> result = findOrders(); // query 1번 실행 -> N개 추가 호출
 
@@ -30,6 +46,7 @@ public class OrderQueryRepository {
     ToOne 관계들을 먼저 조회하고, 여기서 얻은 식별자 orderId로 ToMany 관계인 OrderItem 을 한꺼번 에 조회
     MAP을 사용해서 매칭 성능 향상(O(1))
      */
+    @Timed("jpashop.order.query")
     public List<OrderQueryDto> findAllByDto_optimization() {
         List<OrderQueryDto> result = findOrders();
 
@@ -42,13 +59,40 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /*
+    V5 페이징 버전
+    주문은 order_id 순으로 offset, limit 만큼만 조회하고, 주문상품은 IN 절을 청크로 나눠서 조회한다.
+    IN 절의 파라미터 개수가 매번 다르면 하이버네이트 쿼리 플랜 캐시와 DB 실행계획 캐시에 서로 다른 쿼리로 쌓인다.
+    파라미터 개수는 hibernate.query.in_clause_parameter_padding 이 2의 거듭제곱으로 채워서 쿼리 모양을 재사용한다. (application.yml)
+     */
+    @Timed("jpashop.order.query")
+    public List<OrderQueryDto> findAllByDto_optimization(int offset, int limit) {
+        List<OrderQueryDto> result = findOrders(offset, limit);
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMapInChunks(toOrderIds(result));
+
+        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+
+        return result;
+    }
+
+    private Map<Long, List<OrderItemQueryDto>> findOrderItemMapInChunks(List<Long> orderIds) {
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = new HashMap<>();
+        for (int from = 0; from < orderIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + IN_CHUNK_SIZE, orderIds.size()));
+            orderItemMap.putAll(findOrderItemMap(chunk));
+        }
+        return orderItemMap;
+    }
+
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
         // 쿼리 (IN) 를 통해서 데이터 조회
         List<OrderItemQueryDto> orderItems = em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                                 " from OrderItem oi" +
                                 " join oi.item i" +
-                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                                " where oi.order.id in :orderIds" +
+                                " order by oi.id", OrderItemQueryDto.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
 
@@ -71,22 +115,37 @@ public class OrderQueryRepository {
                 "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         " from OrderItem oi" +
                         " join oi.item i" +
-                        " where oi.order.id = :orderId", OrderItemQueryDto.class)
+                        " where oi.order.id = :orderId" +
+                        " order by oi.id", OrderItemQueryDto.class)
                 .setParameter("orderId", orderId)
                 .getResultList();
     }
 
-    // 주문 Id List
+    // 주문 Id List, 응답 순서가 조인 순서에 따라 바뀌지 않도록 주문 id 순으로 (OrderJsonQueryRepository 와 같은 순서)
     public List<OrderQueryDto> findOrders() {
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
                         " from Order o" +
                         " join o.member m" +
-                        " join o.delivery d", OrderQueryDto.class)
+                        " join o.delivery d" +
+                        " order by o.id", OrderQueryDto.class)
+                .getResultList();
+    }
+
+    public List<OrderQueryDto> findOrders(int offset, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " order by o.id", OrderQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
                 .getResultList();
     }
 
     // 모두 join 해서 쿼리 한번에 해결, 중복이 발생하고 뻥튀기가 심한 단점, Order를 기준으로 페이징 X
+    @Timed("jpashop.order.query")
     public List<OrderFlatDto> findAllByDto_flat() {
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
@@ -94,7 +153,83 @@ public class OrderQueryRepository {
                         " join o.member m" +
                         " join o.delivery d" +
                         " join o.orderItems oi" +
-                        " join oi.item i", OrderFlatDto.class)
+                        " join oi.item i" +
+                        " order by o.id, oi.id", OrderFlatDto.class)
                 .getResultList();
     }
+
+    /*
+    V6 페이징 버전, row 가 아니라 주문 기준으로 limit 건을 조회한다.
+    afterId 이후의 flat row 를 order_id 순으로 커서로 읽으면서 주문 단위로 접고, 주문이 limit 건 완성되면 더 읽지 않는다.
+    쿼리는 한번이고 중복된 주문 정보는 애플리케이션 안에서만 잠깐 존재한다. (트랜잭션 안에서 호출해야 한다)
+     */
+    @Timed("jpashop.order.query")
+    public List<OrderQueryDto> findAllByDto_flat(Long afterId, int limit) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatAssembler assembler = new OrderFlatAssembler(result::add);
+
+        ScrollableResults rows = scrollFlat(afterId, FLAT_FETCH_SIZE);
+        try {
+            while (result.size() < limit && rows.next()) {
+                addRow(assembler, rows.get());
+            }
+            // 끝까지 읽은 경우에만 마지막 주문이 완성된 것이다
+            if (result.size() < limit) {
+                assembler.finish();
+            }
+        } finally {
+            rows.close();
+        }
+        return result;
+    }
+
+    /*
+    전체 주문을 forward-only 커서로 한 row 씩 읽어서 주문 단위로 consumer 로 넘긴다. (트랜잭션 안에서 호출해야 한다)
+    메모리에는 주문 한 건만 유지되고, DTO 조회라서 영속성 컨텍스트에도 쌓이지 않는다.
+     */
+    @Timed("jpashop.order.query")
+    public void streamAllByDto_flat(int fetchSize, Consumer<OrderQueryDto> consumer) {
+        OrderFlatAssembler assembler = new OrderFlatAssembler(consumer);
+
+        ScrollableResults rows = scrollFlat(null, fetchSize);
+        try {
+            while (rows.next()) {
+                addRow(assembler, rows.get());
+            }
+            assembler.finish();
+        } finally {
+            rows.close();
+        }
+    }
+
+    // order_id 순으로 정렬해야 같은 주문의 row 가 연속으로 온다, 주문상품이 없는 주문은 주문상품 컬럼이 null 인 row 한 줄
+    private ScrollableResults scrollFlat(Long afterId, int fetchSize) {
+        String hql = "select o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.delivery d" +
+                " left join o.orderItems oi" + // 주문상품이 없는 주문도 빠지지 않도록
+                " left join oi.item i";
+        if (afterId != null) {
+            hql += " where o.id > :afterId";
+        }
+        hql += " order by o.id, oi.id";
+
+        Query<?> query = em.unwrap(Session.class).createQuery(hql)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private static void addRow(OrderFlatAssembler assembler, Object[] row) {
+        if (row[6] == null) {
+            assembler.addWithoutItems((Long) row[0], (String) row[1], (LocalDateTime) row[2], (OrderStatus) row[3], (Address) row[4]);
+            return;
+        }
+        assembler.add(new OrderFlatDto((Long) row[0], (String) row[1], (LocalDateTime) row[2], (OrderStatus) row[3], (Address) row[4],
+                (String) row[5], (Integer) row[6], (Integer) row[7]));
+    }
 }
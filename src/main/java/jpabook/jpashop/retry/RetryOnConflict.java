@@ -0,0 +1,18 @@
+package jpabook.jpashop.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    낙관적 락 충돌(version 불일치)로 실패하면 메서드를 새 트랜잭션으로 다시 실행한다. (RetryOnConflictAspect)
+    @Transactional 보다 바깥에서 돌기 때문에 매번 새로 조회한 엔티티로 다시 시도한다.
+    다시 실행해도 안전한 (다시 조회해서 수정하는) 메서드에만 붙인다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+    // 최대 실행 횟수 (처음 포함), 0 이면 jpashop.retry.max-attempts
+    int maxAttempts() default 0;
+}
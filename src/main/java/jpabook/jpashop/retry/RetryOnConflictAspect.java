@@ -0,0 +1,101 @@
+package jpabook.jpashop.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.OptimisticLockException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+    @RetryOnConflict 처리
+    낙관적 락 충돌이면 backoff 만큼 쉬고 다시 실행한다. 대기 시간은 initial-backoff-millis 부터 두배씩 늘려서 max-backoff-millis 까지,
+    그 안에서 무작위로 고른다 (full jitter). 충돌한 요청들이 같은 순간에 다시 부딪히지 않게 흩어 놓는다.
+    - @Timed(HIGHEST_PRECEDENCE) 안쪽, @Transactional 바깥에서 돈다. 시간 메트릭에는 재시도까지 포함된다.
+    - 이미 바깥 트랜잭션 안에서 호출되면 그 트랜잭션이 실패한 것이므로 다시 시도하지 않고 그대로 던진다.
+    메트릭 jpashop.retry.conflicts (class, method, outcome = retried | exhausted)
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class RetryOnConflictAspect {
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Method, ConcurrentMap<String, Counter>> counters = new ConcurrentHashMap<>();
+
+    @Value("${jpashop.retry.max-attempts:3}")
+    private int defaultMaxAttempts;
+    @Value("${jpashop.retry.initial-backoff-millis:10}")
+    private long initialBackoffMillis;
+    @Value("${jpashop.retry.max-backoff-millis:200}")
+    private long maxBackoffMillis;
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        int maxAttempts = retryOnConflict.maxAttempts() > 0 ? retryOnConflict.maxAttempts() : defaultMaxAttempts;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    counter(joinPoint, "exhausted").increment();
+                    log.warn("optimistic lock conflict, giving up after {} attempts: {}", attempt, joinPoint.getSignature().toShortString());
+                    throw e;
+                }
+                counter(joinPoint, "retried").increment();
+                Thread.sleep(backoffMillis(attempt));
+            }
+        }
+    }
+
+    // [0, min(max, initial * 2^(attempt-1))] 에서 무작위
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    // 커밋 시점이면 스프링 예외로, flush 시점이면 JPA / 하이버네이트 예외로 올라온다
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Counter counter(ProceedingJoinPoint joinPoint, String outcome) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return counters.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, o -> Counter.builder("jpashop.retry.conflicts")
+                        .tag("class", method.getDeclaringClass().getSimpleName())
+                        .tag("method", method.getName())
+                        .tag("outcome", o)
+                        .register(meterRegistry));
+    }
+}
@@ -1,7 +1,95 @@
 package jpabook.jpashop.service.query;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.order.query.OrderJsonQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Service
 @Transactional(readOnly = true)
+@RequiredArgsConstructor
 public class OrderQueryService {
+    private static final int FETCH_SIZE = 1000;     // JDBC 커서가 한번에 가져오는 row 수
+    private static final int FLUSH_INTERVAL = 100;  // 주문 N건 마다 응답으로 밀어낸다
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final OrderJsonQueryRepository orderJsonQueryRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ObjectMapper objectMapper;
+
+    // 커서로 읽기 때문에 조회하는 동안 트랜잭션이 필요하다
+    public List<OrderQueryDto> findOrdersByFlat(Long afterId, int limit) {
+        return orderQueryRepository.findAllByDto_flat(afterId, limit);
+    }
+
+    // 주문 목록, 조인 없이 요약 테이블에서 (readOnly 라서 복제본이 있으면 복제본에서 읽는다)
+    public List<OrderSummary> findOrderSummaries(OrderStatus status, String memberName, Long afterId, int limit) {
+        return orderSummaryRepository.findPage(status, memberName, afterId, limit);
+    }
+
+    /*
+    주문 전체를 NDJSON (한 줄에 주문 하나) 으로 out 에 바로 쓴다.
+    List 로 모으지 않고 커서에서 주문이 하나 완성될 때마다 직렬화하므로 주문 수와 상관없이 힙 사용량이 일정하다.
+    첫 주문은 바로 flush 해서 쿼리가 끝나기 전에 응답이 시작되도록 한다.
+     */
+    public void exportOrders(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer()
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            int[] count = {0};
+            orderQueryRepository.streamAllByDto_flat(FETCH_SIZE, order -> {
+                try {
+                    writer.writeValue(generator, order);
+                    generator.writeRaw('\n');
+
+                    count[0]++;
+                    if (count[0] == 1 || count[0] % FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // V5 와 같은 주문 목록 JSON 을 DTO 없이 out 에 바로 쓴다
+    public void writeOrders(OutputStream out) throws IOException {
+        writeJson(out, orderJsonQueryRepository::writeOrders);
+    }
+
+    // V6 와 같은 flat row JSON 을 DTO 없이 out 에 바로 쓴다
+    public void writeOrderFlats(OutputStream out) throws IOException {
+        writeJson(out, orderJsonQueryRepository::writeOrderFlats);
+    }
+
+    private void writeJson(OutputStream out, Consumer<JsonGenerator> writer) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writer.accept(generator);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 }
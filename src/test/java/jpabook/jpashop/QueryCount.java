@@ -0,0 +1,37 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.monitoring.SqlStatistics;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    테스트에서 실행된 SQL 수 검증
+    assertMaxQueries(2, () -> orderService.findOrders(search));
+    영속성 컨텍스트에 쌓인 변경은 flush 때 실행되므로, 측정 전에 em.flush() 해두어야 준비 단계의 insert 가 섞이지 않는다.
+ */
+public final class QueryCount {
+    private QueryCount() {
+    }
+
+    public static <T> T assertMaxQueries(int max, Supplier<T> action) {
+        SqlStatistics statistics = SqlStatistics.start();
+        T result;
+        try {
+            result = action.get();
+        } finally {
+            statistics.stop();
+        }
+        assertTrue(statistics.getStatementCount() <= max,
+                "SQL 은 최대 " + max + "번 실행되어야 하는데 " + statistics.getStatementCount() + "번 실행되었다");
+        return result;
+    }
+
+    public static void assertMaxQueries(int max, Runnable action) {
+        assertMaxQueries(max, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
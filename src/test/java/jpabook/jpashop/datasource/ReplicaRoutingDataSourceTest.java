@@ -0,0 +1,132 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jpabook.jpashop.datasource.ReplicaProperties.Selection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// primary / 복제본을 서로 다른 H2 메모리 DB 로 띄우고, 어느 쪽에서 SQL 이 실행되는지 DATABASE() 로 확인한다
+class ReplicaRoutingDataSourceTest {
+    private static final long WINDOW_MILLIS = 60_000;
+
+    ReplicaRoutingDataSource routingDataSource;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate write;
+    TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        HikariDataSource primary = h2("jdbc:h2:mem:rw_primary;DB_CLOSE_DELAY=-1");
+        HikariDataSource replica = h2("jdbc:h2:mem:rw_replica;DB_CLOSE_DELAY=-1");
+        replica.setReadOnly(true);
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), Selection.ROUND_ROBIN, WINDOW_MILLIS);
+        routingDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        write = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        ReadYourWrites.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+        ReadYourWrites.disable(); // 다른 테스트에 남지 않도록
+        routingDataSource.close();
+    }
+
+    @Test
+    void 읽기전용은_복제본() {
+        assertEquals("RW_REPLICA", readOnly.execute(status -> database()));
+    }
+
+    @Test
+    void 쓰기는_primary() {
+        assertEquals("RW_PRIMARY", write.execute(status -> database()));
+        assertEquals("RW_PRIMARY", database(), "트랜잭션 밖은 primary");
+    }
+
+    @Test
+    void 쓰기_직후_읽기는_primary() {
+        // Given
+        write.execute(status -> database());
+
+        // When, Then
+        assertTrue(ReadYourWrites.isPinned(), "쓰기가 커밋되면 기한이 걸려야 한다");
+        assertEquals("RW_PRIMARY", readOnly.execute(status -> database()), "기한 안의 읽기는 primary");
+
+        ReadYourWrites.clear();
+        assertEquals("RW_REPLICA", readOnly.execute(status -> database()), "기한이 없으면 다시 복제본");
+    }
+
+    @Test
+    void 조건부요청_조회는_primary() throws Exception {
+        // Given, read-your-writes 기한이 꺼져 있어도
+        ReadYourWrites.enable(0);
+        String[] databases = new String[2];
+
+        // When
+        new ReadYourWritesFilter().doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (req, res) -> {
+            databases[0] = readOnly.execute(status -> database());
+            ReadYourWrites.readPrimary();
+            databases[1] = readOnly.execute(status -> database());
+        });
+
+        // Then
+        assertEquals("RW_REPLICA", databases[0]);
+        assertEquals("RW_PRIMARY", databases[1], "ETag 를 계산한 뒤의 조회는 primary");
+        assertEquals("RW_REPLICA", readOnly.execute(status -> database()), "요청이 끝나면 다시 복제본");
+    }
+
+    @Test
+    void 쿠키_기한은_잘라낸다() throws Exception {
+        // Given, 하루 뒤까지 primary 로 보내 달라는 쿠키
+        ReadYourWrites.enable(50);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWrites.COOKIE_NAME, String.valueOf(System.currentTimeMillis() + 86_400_000L)));
+        boolean[] pinned = new boolean[2];
+
+        // When
+        new ReadYourWritesFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            pinned[0] = ReadYourWrites.isPinned();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pinned[1] = ReadYourWrites.isPinned();
+        });
+
+        // Then
+        assertTrue(pinned[0], "기한 안에서는 primary");
+        assertFalse(pinned[1], "read-your-writes-millis 가 지나면 쿠키 값과 관계없이 풀려야 한다");
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("select database()", String.class);
+    }
+
+    private static HikariDataSource h2(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
@@ -0,0 +1,107 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.service.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static jpabook.jpashop.QueryCount.assertMaxQueries;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class CategoryServiceTest {
+    @Autowired EntityManager em;
+    @Autowired CategoryService categoryService;
+
+    @Test
+    void 하위트리_조상_조회() throws Exception {
+        // Given
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long java = categoryService.create("자바", it);
+        Long novel = categoryService.create("소설", books);
+        Item book = createBook("자바 ORM 표준 JPA 프로그래밍", em.find(Category.class, java));
+        em.flush();
+        em.clear();
+
+        // When
+        List<Long> subtree = assertMaxQueries(2, () -> categoryService.findSubtree(it)).stream()
+                .map(Category::getId)
+                .collect(Collectors.toList());
+        List<Long> ancestors = categoryService.findAncestors(java).stream()
+                .map(Category::getId)
+                .collect(Collectors.toList());
+        List<Item> items = categoryService.findItemsInSubtree(books);
+
+        // Then
+        assertEquals(List.of(it, java), subtree, "자기 자신과 자손만 조회되어야 한다");
+        assertEquals(List.of(books, it), ancestors, "루트부터 부모까지 조회되어야 한다");
+        assertEquals(List.of(book.getId()), items.stream().map(Item::getId).collect(Collectors.toList()), "자손 카테고리의 상품도 조회되어야 한다");
+        assertFalse(subtree.contains(novel));
+    }
+
+    @Test
+    void 하위트리_이동() throws Exception {
+        // Given
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long java = categoryService.create("자바", it);
+        Long music = categoryService.create("음반", null);
+
+        // When
+        categoryService.move(it, music);
+        em.flush();
+        em.clear();
+
+        // Then
+        Category moved = em.find(Category.class, java);
+        assertEquals("/" + music + "/" + it + "/", moved.getPath(), "자손의 path 도 함께 바뀌어야 한다");
+        assertEquals(List.of(music, it), moved.getAncestorIds());
+        assertThrows(IllegalArgumentException.class, () -> categoryService.move(music, java), "자손 밑으로는 옮길 수 없다");
+    }
+
+    @Test
+    void 카테고리상품_페이징() throws Exception {
+        // Given
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Category category = em.find(Category.class, books);
+        Category child = em.find(Category.class, it);
+        Item book1 = createBook("JPA", category);
+        Item book2 = createBook("SPRING", child);
+        Item book3 = createBook("JAVA", category);
+        child.getItems().add(book3); // 두 카테고리에 속한 상품
+        em.flush();
+        em.clear();
+
+        // When
+        List<Item> first = assertMaxQueries(2, () -> categoryService.findItemsPage(books, true, null, 2));
+        List<Item> second = categoryService.findItemsPage(books, true, first.get(first.size() - 1).getId(), 2);
+        List<Item> direct = categoryService.findItemsPage(books, false, null, 10);
+
+        // Then
+        assertEquals(List.of(book1.getId(), book2.getId()), first.stream().map(Item::getId).collect(Collectors.toList()));
+        assertEquals(List.of(book3.getId()), second.stream().map(Item::getId).collect(Collectors.toList()), "자손에도 속한 상품은 한번만");
+        assertEquals(2, direct.size(), "subtree 가 아니면 직접 속한 상품만");
+        assertEquals(2L, categoryService.countItemsByCategory().get(it), "카테고리별 상품 수");
+    }
+
+    private Item createBook(String name, Category category) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        category.getItems().add(book);
+        return book;
+    }
+}
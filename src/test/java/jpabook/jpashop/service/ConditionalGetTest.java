@@ -0,0 +1,75 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static jpabook.jpashop.QueryCount.assertMaxQueries;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 버전은 커밋 후에 올라가므로 @Transactional 을 붙이지 않는다
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberService memberService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void 회원목록_조건부요청() throws Exception {
+        // Given
+        String etag = mockMvc.perform(get("/api/v2/members"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag, "ETag 가 내려가야 한다");
+
+        // When / Then, 변경이 없으면 버전 row 조회 한번으로 304
+        MvcResult notModified = assertMaxQueries(1, () -> perform(get("/api/v2/members").header(HttpHeaders.IF_NONE_MATCH, etag)));
+        assertEquals(304, notModified.getResponse().getStatus());
+
+        // 가입이 커밋되면 ETag 가 바뀐다
+        Member member = new Member();
+        member.setName("조건부요청회원" + System.nanoTime());
+        memberService.join(member);
+
+        String changed = mockMvc.perform(get("/api/v2/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed, "회원이 바뀌면 ETag 도 바뀌어야 한다");
+    }
+
+    @Test
+    void 다른_인스턴스의_변경도_반영() throws Exception {
+        // Given
+        String etag = mockMvc.perform(get("/api/v2/members"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When, 다른 인스턴스가 커밋하면서 올린 버전 (이 JVM 의 서비스를 거치지 않는다)
+        jdbcTemplate.update("update resource_version set version = version + 1 where resource = 'MEMBERS'");
+
+        // Then
+        String changed = mockMvc.perform(get("/api/v2/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed, "다른 인스턴스의 변경에도 304 가 아니어야 한다");
+    }
+
+    private MvcResult perform(RequestBuilder request) {
+        try {
+            return mockMvc.perform(request).andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,8 +6,18 @@ import jpabook.jpashop.repository.MemberRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -51,5 +61,54 @@ class MemberServiceTest {
 
     }
 
+    @Test
+    void 이름없이_수정() throws Exception {
+        // Given
+        Member member = new Member();
+        member.setName("lee");
+        Long id = memberService.join(member);
+
+        // When, Then
+        assertThrows(IllegalArgumentException.class, () -> memberService.update(id, null));
+        assertEquals("lee", memberRepository.findOne(id).getName());
+    }
 
+    // 두 가입이 모두 블룸 필터 / 존재 확인을 통과해도 유니크 제약 위반은 중복 회원 예외로 나가야 한다 (각자 커밋해야 하므로 트랜잭션 밖에서)
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void 동시_중복회원가입() throws Exception {
+        // Given
+        String name = "동시가입" + System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger duplicated = new AtomicInteger();
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                Member member = new Member();
+                member.setName(name);
+                try {
+                    memberService.join(member);
+                    joined.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    duplicated.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(1, joined.get(), "한 명만 가입되어야 한다");
+        assertEquals(1, duplicated.get(), "나머지는 중복 회원 예외가 발생해야 한다");
+        assertEquals(1, memberRepository.findByName(name).size());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderJsonTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+
+    @Test
+    void DTO없는_JSON_응답_동일() throws Exception {
+        // Given, 한글 / 특수문자 이름, 여러 상품 주문, 취소 주문
+        Member member = new Member();
+        member.setName("직렬화 \"회원\"" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가 \\ 1길", "123-123"));
+        em.persist(member);
+
+        Book book1 = createBook("JSON 책 <1>");
+        Book book2 = createBook("JSON 책 2");
+
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book1.getId(), 2);
+        itemCounts.put(book2.getId(), 1);
+        orderService.order(member.getId(), itemCounts);
+        Long canceled = orderService.order(member.getId(), book2.getId(), 3);
+        orderService.cancelOrder(canceled);
+        em.flush();
+
+        // When
+        byte[] v5 = getJson("/api/v5/orders");
+        byte[] v5Direct = getJson("/api/v5.2/orders");
+        byte[] v6 = getJson("/api/v6/orders");
+        byte[] v6Direct = getJson("/api/v6.2/orders");
+
+        // Then
+        assertTrue(v5.length > 2, "주문이 있어야 한다");
+        assertArrayEquals(v5, v5Direct, () -> "V5 와 같아야 한다\n" + new String(v5, UTF_8) + "\n" + new String(v5Direct, UTF_8));
+        assertArrayEquals(v6, v6Direct, () -> "V6 와 같아야 한다\n" + new String(v6, UTF_8) + "\n" + new String(v6Direct, UTF_8));
+    }
+
+    private byte[] getJson(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(12300);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+}
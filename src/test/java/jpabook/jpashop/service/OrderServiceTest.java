@@ -4,11 +4,19 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.domain.exception.NotEnoughStockException;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.service.ItemService;
+import jpabook.jpashop.domain.service.MemberService;
+import jpabook.jpashop.domain.service.OrderCommand;
+import jpabook.jpashop.domain.service.OrderResult;
 import jpabook.jpashop.domain.service.OrderService;
+import jpabook.jpashop.domain.service.OrderTotalVerifier;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +24,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static jpabook.jpashop.QueryCount.assertMaxQueries;
 
 @SpringBootTest
 @Transactional
@@ -23,6 +36,10 @@ public class OrderServiceTest {
     @Autowired EntityManager em;
     @Autowired OrderService orderService;
     @Autowired OrderRepository orderRepository;
+    @Autowired OrderSummaryRepository orderSummaryRepository;
+    @Autowired OrderTotalVerifier orderTotalVerifier;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
 
     @Test
     void 상품주문() throws Exception {
@@ -46,6 +63,29 @@ public class OrderServiceTest {
         assertEquals(7, book.getStockQuantity(), "주문 수량만큼 재고감소");
     }
 
+    @Test
+    void 장바구니주문() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book1 = createBook("시골 jPA", 10000, 10);
+        Book book2 = createBook("시골 SPRING", 20000, 10);
+
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book2.getId(), 1);
+        itemCounts.put(book1.getId(), 3);
+
+        // When
+        Long orderId = orderService.order(member.getId(), itemCounts);
+
+        // Then
+        Order getOrder = orderRepository.findOne(orderId);
+        assertEquals(OrderStatus.ORDER, getOrder.getStatus(), "상품 주문시 상태는 ORDER");
+        assertEquals(2, getOrder.getOrderItems().size(), "주문한 상품 종류 수가 정확해야 한다");
+        assertEquals(10000 * 3 + 20000, getOrder.getTotalPrice(), "주문 가격은 상품별 가격 * 수량의 합이다");
+        assertEquals(7, book1.getStockQuantity(), "주문 수량만큼 재고감소");
+        assertEquals(9, book2.getStockQuantity(), "주문 수량만큼 재고감소");
+    }
+
     @Test
     void 주문취소() throws Exception {
         // Given
@@ -83,6 +123,208 @@ public class OrderServiceTest {
         fail("재고 수량 부족 예외가 발생해야 한다.");
     }
 
+    @Test
+    void 장바구니주문_없는상품() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book = createBook("시골 jPA", 10000, 10);
+
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book.getId(), 1);
+        itemCounts.put(Long.MAX_VALUE, 1);
+
+        // When
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> orderService.order(member.getId(), itemCounts));
+
+        // Then
+        assertTrue(e.getMessage().contains("상품이 없습니다"), "없는 상품은 재고 부족이 아니라 없는 상품으로 알려야 한다");
+    }
+
+    @Test
+    void 묶음주문_일부실패() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book = createBook("시골 jPA", 10000, 10);
+
+        // When
+        List<OrderResult> results = orderService.orderEach(List.of(
+                OrderCommand.of(member.getId(), book.getId(), 3),
+                OrderCommand.of(member.getId(), book.getId(), 100),
+                OrderCommand.of(member.getId(), book.getId(), 2)));
+
+        // Then
+        assertTrue(results.get(0).isSuccess(), "재고가 있는 주문은 성공해야 한다");
+        assertTrue(results.get(1).getError() instanceof NotEnoughStockException, "재고가 부족한 주문만 실패해야 한다");
+        assertTrue(results.get(2).isSuccess(), "실패한 주문 뒤의 주문도 성공해야 한다");
+        em.flush();
+        em.clear();
+        assertEquals(5, em.find(Book.class, book.getId()).getStockQuantity(), "성공한 주문 수량만 재고에서 빠져야 한다");
+    }
+
+    @Test
+    void 묶음주문_장바구니_재고복구() throws Exception {
+        // Given, 앞 상품은 차감되고 뒤 상품에서 재고가 부족한 장바구니
+        Member member = createMember();
+        Book book1 = createBook("시골 jPA", 10000, 10);
+        Book book2 = createBook("시골 SPRING", 20000, 1);
+
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book1.getId(), 4);
+        itemCounts.put(book2.getId(), 2);
+
+        // When
+        List<OrderResult> results = orderService.orderEach(List.of(
+                new OrderCommand(member.getId(), itemCounts),
+                OrderCommand.of(member.getId(), book1.getId(), 1)));
+
+        // Then
+        assertTrue(results.get(0).getError() instanceof NotEnoughStockException, "재고가 부족한 장바구니는 실패해야 한다");
+        assertTrue(results.get(1).isSuccess(), "같은 배치의 다른 주문은 성공해야 한다");
+        em.flush();
+        em.clear();
+        assertEquals(9, em.find(Book.class, book1.getId()).getStockQuantity(), "실패한 장바구니가 차감한 재고는 되돌려야 한다");
+        assertEquals(1, em.find(Book.class, book2.getId()).getStockQuantity());
+    }
+
+    @Test
+    void 주문검색_쿼리수() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book = createBook("시골 jPA", 10000, 10);
+        orderService.order(member.getId(), book.getId(), 1);
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setOrderStatus(OrderStatus.ORDER);
+
+        // When
+        List<Order> orders = assertMaxQueries(1, () -> orderService.findOrders(orderSearch));
+
+        // Then
+        assertFalse(orders.isEmpty(), "주문 상태로 검색된 주문이 있어야 한다");
+    }
+
+    @Test
+    void 주문검색_회원이름_접두어() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book = createBook("시골 jPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+        em.flush();
+        em.clear();
+
+        OrderSearch prefix = new OrderSearch();
+        prefix.setMemberName("회원");
+        OrderSearch infix = new OrderSearch();
+        infix.setMemberName("원1");
+
+        // When, Then, 세 방식 모두 접두어로만 찾는다
+        for (OrderSearch orderSearch : List.of(prefix, infix)) {
+            boolean expected = orderSearch == prefix;
+            assertEquals(expected, containsOrder(orderRepository.findAllByString(orderSearch), orderId), "string");
+            assertEquals(expected, containsOrder(orderRepository.findAllByCriteria(orderSearch), orderId), "criteria");
+            assertEquals(expected, containsOrder(orderRepository.findAllByPrecompiled(orderSearch), orderId), "precompiled");
+        }
+    }
+
+    @Test
+    void 주문검색_인덱스에_없는_회원() throws Exception {
+        // Given, MemberService 를 거치지 않아 이름 인덱스가 모르는 회원 (다른 인스턴스에서 가입한 경우)
+        Member member = new Member();
+        member.setName("인덱스밖회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "경기", "123-123"));
+        em.persist(member);
+        Book book = createBook("시골 jPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("인덱스밖회원");
+
+        // When
+        List<Order> orders = orderService.findOrders(orderSearch);
+
+        // Then
+        assertTrue(containsOrder(orders, orderId), "인덱스에 후보가 없어도 DB 에서 찾아야 한다");
+    }
+
+    @Test
+    void 주문요약_유지() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book1 = createBook("시골 jPA", 10000, 10);
+        Book book2 = createBook("시골 SPRING", 20000, 10);
+
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book1.getId(), 3);
+        itemCounts.put(book2.getId(), 1);
+
+        // When
+        Long orderId = orderService.order(member.getId(), itemCounts);
+        orderService.cancelOrder(orderId);
+        em.flush();
+        em.clear();
+
+        // Then
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        assertEquals("회원1", summary.getMemberName(), "주문한 회원 이름이 저장되어야 한다");
+        assertEquals(10000 * 3 + 20000, summary.getTotalPrice(), "주문 가격은 상품별 가격 * 수량의 합이다");
+        assertEquals(2, summary.getLineCount(), "주문상품 수가 저장되어야 한다");
+        assertEquals("시골 jPA, 시골 SPRING", summary.getItemNames(), "주문상품 이름이 저장되어야 한다");
+        assertEquals(OrderStatus.CANCEL, summary.getStatus(), "주문 취소가 요약에도 반영되어야 한다");
+    }
+
+    @Test
+    void 주문요약_이름변경() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book1 = createBook("시골 jPA", 10000, 10);
+        Book book2 = createBook("시골 SPRING", 20000, 10);
+
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        itemCounts.put(book1.getId(), 1);
+        itemCounts.put(book2.getId(), 1);
+        Long orderId = orderService.order(member.getId(), itemCounts);
+        em.flush();
+        em.clear();
+
+        // When
+        memberService.update(member.getId(), "회원2");
+        itemService.updateItem(book2.getId(), em.find(Book.class, book2.getId()).getVersion(), "도시 SPRING", 20000, 9);
+        em.flush();
+        em.clear();
+
+        // Then
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        assertEquals("회원2", summary.getMemberName(), "바뀐 회원 이름이 요약에 반영되어야 한다");
+        assertEquals("시골 jPA, 도시 SPRING", summary.getItemNames(), "바뀐 상품 이름이 요약에 반영되어야 한다");
+    }
+
+    @Test
+    void 주문금액_검증_복구() throws Exception {
+        // Given
+        Member member = createMember();
+        Book book = createBook("시골 jPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+        em.flush();
+        em.createNativeQuery("update orders set total_price = 1 where order_id = :orderId")
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+        em.clear();
+
+        // When
+        long drifted = orderTotalVerifier.verify();
+        em.flush();
+        em.clear();
+
+        // Then
+        assertTrue(drifted >= 1, "어긋난 주문금액을 찾아야 한다");
+        assertEquals(20000, orderRepository.findOne(orderId).getTotalPrice(), "주문금액을 주문상품 합계로 고쳐야 한다");
+        assertEquals(20000, orderSummaryRepository.findOne(orderId).getTotalPrice(), "요약의 주문금액도 고쳐야 한다");
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
@@ -99,4 +341,8 @@ public class OrderServiceTest {
         em.persist(member);
         return member;
     }
+
+    private static boolean containsOrder(List<Order> orders, Long orderId) {
+        return orders.stream().anyMatch(o -> o.getId().equals(orderId));
+    }
 }
@@ -0,0 +1,108 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.service.ItemService;
+import jpabook.jpashop.domain.service.ItemView;
+import jpabook.jpashop.retry.RetryOnConflict;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 바깥 트랜잭션이 있으면 다시 시도하지 않으므로 @Transactional 을 붙이지 않는다
+@SpringBootTest
+class RetryOnConflictTest {
+    @Autowired ConflictingService conflictingService;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired ItemService itemService;
+
+    @Test
+    void 충돌시_재시도() throws Exception {
+        // Given
+        conflictingService.reset(2);
+        double retriedBefore = retried();
+
+        // When
+        String result = conflictingService.update();
+
+        // Then
+        assertEquals("ok", result);
+        assertEquals(3, conflictingService.calls(), "두번 충돌하고 세번째에 성공해야 한다");
+        assertEquals(2.0, retried() - retriedBefore, 0.0, "재시도 수가 메트릭에 남아야 한다");
+    }
+
+    @Test
+    void 재시도_횟수_초과() throws Exception {
+        // Given
+        conflictingService.reset(10);
+
+        // When / Then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> conflictingService.update());
+        assertEquals(3, conflictingService.calls(), "jpashop.retry.max-attempts 만큼만 실행해야 한다");
+    }
+
+    @Test
+    void 상품수정_충돌은_재시도하지_않음() throws Exception {
+        // Given, 폼을 연 뒤에 재고가 바뀐 상품
+        Book book = new Book();
+        book.setName("충돌 책");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        Long formVersion = itemService.findForUpdate(book.getId()).getVersion();
+        itemService.addStock(book.getId(), 1);
+        double retriedBefore = retried();
+
+        // When / Then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> itemService.updateItem(book.getId(), formVersion, "덮어쓴 책", 10000, 10));
+        assertEquals(0.0, retried() - retriedBefore, 0.0, "다시 시도해서 덮어쓰면 안 된다");
+        ItemView item = itemService.findForUpdate(book.getId());
+        assertEquals("충돌 책", item.getName());
+        assertEquals(11, item.getStockQuantity(), "먼저 커밋된 입고가 남아야 한다");
+    }
+
+    private double retried() {
+        return meterRegistry.find("jpashop.retry.conflicts").tag("outcome", "retried").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ConflictingService conflictingService() {
+            return new ConflictingService();
+        }
+    }
+
+    // 빈은 CGLIB 프록시라서 필드를 직접 읽으면 프록시의 (비어 있는) 필드를 보게 된다. public 메서드로만 접근한다
+    static class ConflictingService {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int conflicts;
+
+        public void reset(int conflicts) {
+            this.conflicts = conflicts;
+            calls.set(0);
+        }
+
+        public int calls() {
+            return calls.get();
+        }
+
+        @RetryOnConflict
+        public String update() {
+            if (calls.incrementAndGet() <= conflicts) {
+                throw new ObjectOptimisticLockingFailureException("Item", 1L);
+            }
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.exception.NotEnoughStockException;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.service.ItemService;
+import jpabook.jpashop.domain.service.MemberService;
+import jpabook.jpashop.domain.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 여러 스레드가 각자 트랜잭션을 커밋해야 하므로 @Transactional 을 붙이지 않는다
+@SpringBootTest
+class StockConcurrencyTest {
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+
+    @Test
+    void 동시주문_재고차감() throws Exception {
+        // Given
+        Member member = new Member();
+        member.setName("동시주문회원");
+        member.setAddress(new Address("서울", "경기", "123-123"));
+        memberService.join(member);
+
+        Book book = new Book();
+        book.setName("인기 상품");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+
+        int threadCount = 16;
+        int orderCount = 150;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.order(member.getId(), book.getId(), 1);
+                    success.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    outOfStock.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(100, success.get(), "재고 수량만큼만 주문이 성공해야 한다");
+        assertEquals(50, outOfStock.get(), "나머지는 재고 부족 예외가 발생해야 한다");
+        assertEquals(0, itemService.findOne(book.getId()).getStockQuantity(), "차감이 유실 없이 재고가 0 이 되어야 한다");
+    }
+}